@@ -0,0 +1,477 @@
+package imagescalerfx;
+
+import imagescalerfx.utils.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Entry point to scale images without a display. It runs the same
+ * BatchScaler than the main view and writes the progress and the timing of
+ * each image to the standard output as JSON lines.<br/>
+ * With --journal, several processes started with the same options share
+ * the input folder through a ShardCoordinator, each one scaling the shards
+ * it claims (see ShardWorker).
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ImageScalerCLI {
+    private static final String USAGE =
+            "Usage: ImageScalerCLI --input <folder> [options]\n"
+            + "  --output <folder>     Folder for the scaled instances (default: next to each image)\n"
+            + "  --levels <list>       Levels: percentages (50), widths (w640) or boxes (640x480),\n"
+            + "                        e.g. 10,50,w640,1280x720 (default: 10 to 90)\n"
+            + "  --threads <n>         Worker threads (default: available processors)\n"
+            + "  --mode <mode>         fixed_pool | work_stealing | pipeline | virtual_io\n"
+            + "  --stage-threads <list> Threads of the pipeline stages, e.g. read=2,decode=4\n"
+            + "  --stage-queue <n>     Jobs waiting in front of each pipeline stage (default: 16)\n"
+            + "  --io-threads <n>      Reads and writes at once in virtual_io mode (default: 64)\n"
+            + "  --io-latency-ms <n>   Delay added to each read and write, to simulate a slow disk\n"
+            + "  --engine <engine>     java2d | resampler\n"
+            + "  --filter <filter>     box | bilinear | bicubic | lanczos\n"
+            + "  --incremental         Skip images that have not changed\n"
+            + "  --no-recursive        Only scale the direct children of the input folder\n"
+            + "  --output-format <f>   folder | container (one .pyramid file per image)\n"
+            + "  --order <order>       discovery | largest_first\n"
+            + "  --queue <n>           Images discovered ahead of the workers (default: 256)\n"
+            + "  --jpeg-quality <q>    Quality of the JPEG levels, from 0 to 1 (default: 0.75)\n"
+            + "  --progressive         Encode the JPEG levels as progressive JPEG\n"
+            + "  --png-compression <n> Deflate level of the PNG levels, from 0 to 9\n"
+            + "  --memory-mb <n>       Estimated memory of the images scaled at once, 0 disables it (default: heap/2)\n"
+            + "  --pool-mb <n>         Memory kept to reuse pixel arrays, 0 disables it (default: heap/8)\n"
+            + "  --timings <file>      Write the time of each phase and level to a CSV file\n"
+            + "  --history <file>      Append the run to this history (default: ~/.imagescalerfx/history)\n"
+            + "  --no-history          Do not record the run in the history\n"
+            + "  --derive              Scale each level from the nearest larger one\n"
+            + "  --no-subsampling      Never subsample while decoding\n"
+            + "  --no-mmap             Read the sources into the heap instead of mapping them\n"
+            + "  --dedup               Scale byte-identical images once and link the scaled instances\n"
+            + "  --watch               Keep watching the input folder and scale the images as they arrive\n"
+            + "  --debounce-ms <n>     Time an arriving file must stay unchanged before it is scaled (default: 1000)\n"
+            + "  --watch-seconds <n>   Stop watching after this time (default: until interrupted)\n"
+            + "  --journal <folder>    Scale in shards leased from a journal shared by several workers\n"
+            + "  --shard-size <n>      Images of each shard, when the journal is planned (default: 64)\n"
+            + "  --lease-seconds <n>   Time after which the shard of a dead worker is reclaimed (default: 60)\n"
+            + "  --worker-id <id>      Name of this worker in the journal (default: worker-<pid>)\n"
+            + "  --journal-report      Only print the aggregate progress of the journal";
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        ScaleSettings settings = new ScaleSettings();
+        Path input = null;
+        Path timings = null;
+        Path history = RunHistory.getDefaultPath();
+        Path journal = null;
+        int shardSize = 64;
+        long leaseMillis = 60_000;
+        String workerId = "worker-" + ProcessHandle.current().pid();
+        boolean journalReport = false;
+        boolean watch = false;
+        long debounceMillis = 1000;
+        long watchMillis = 0;
+
+        try {
+            for(int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--input": input = Path.of(value(args, ++i)); break;
+                    case "--output": settings.setOutputRoot(Path.of(value(args, ++i))); break;
+                    case "--levels": settings.setLevels(LevelSpec.parseList(value(args, ++i))); break;
+                    case "--threads": settings.setThreads(Integer.parseInt(value(args, ++i))); break;
+                    case "--mode":
+                        settings.setExecutionMode(ExecutionMode.valueOf(enumName(value(args, ++i))));
+                        break;
+                    case "--engine":
+                        settings.setScalingEngine(ScalingEngine.valueOf(enumName(value(args, ++i))));
+                        break;
+                    case "--filter":
+                        settings.setResampleFilter(ResampleFilter.valueOf(enumName(value(args, ++i))));
+                        break;
+                    case "--output-format":
+                        settings.setOutputFormat(OutputFormat.valueOf(enumName(value(args, ++i))));
+                        break;
+                    case "--order":
+                        settings.setJobOrder(JobOrder.valueOf(enumName(value(args, ++i))));
+                        break;
+                    case "--incremental": settings.setIncremental(true); break;
+                    case "--no-recursive": settings.setRecursive(false); break;
+                    case "--queue":
+                        settings.setDiscoveryQueueCapacity(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--stage-threads": parseStageThreads(value(args, ++i), settings); break;
+                    case "--stage-queue":
+                        settings.setStageQueueCapacity(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--io-threads":
+                        settings.setIoThreads(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--io-latency-ms":
+                        settings.setIoLatencyMillis(Long.parseLong(value(args, ++i)));
+                        break;
+                    case "--jpeg-quality":
+                        settings.setJpegQuality(Float.parseFloat(value(args, ++i)));
+                        break;
+                    case "--progressive": settings.setProgressive(true); break;
+                    case "--png-compression":
+                        settings.setPngCompressionLevel(Integer.parseInt(value(args, ++i)));
+                        break;
+                    case "--memory-mb":
+                        settings.setMemoryBudgetBytes(Long.parseLong(value(args, ++i)) * 1024 * 1024);
+                        break;
+                    case "--pool-mb":
+                        settings.setRasterPoolBytes(Long.parseLong(value(args, ++i)) * 1024 * 1024);
+                        break;
+                    case "--timings": timings = Path.of(value(args, ++i)); break;
+                    case "--history": history = Path.of(value(args, ++i)); break;
+                    case "--no-history": history = null; break;
+                    case "--derive": settings.setDeriveFromLargerLevel(true); break;
+                    case "--no-subsampling": settings.setDecodeSubsampling(false); break;
+                    case "--no-mmap": settings.setMappedSources(false); break;
+                    case "--dedup": settings.setDeduplicateSources(true); break;
+                    case "--journal": journal = Path.of(value(args, ++i)); break;
+                    case "--shard-size": shardSize = Integer.parseInt(value(args, ++i)); break;
+                    case "--lease-seconds":
+                        leaseMillis = Long.parseLong(value(args, ++i)) * 1000;
+                        break;
+                    case "--worker-id": workerId = value(args, ++i); break;
+                    case "--journal-report": journalReport = true; break;
+                    case "--watch": watch = true; break;
+                    case "--debounce-ms": debounceMillis = Long.parseLong(value(args, ++i)); break;
+                    case "--watch-seconds":
+                        watchMillis = Long.parseLong(value(args, ++i)) * 1000;
+                        break;
+                    default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+            }
+
+            if(journalReport && journal == null)
+                throw new IllegalArgumentException("--journal-report requires --journal");
+
+            if(!journalReport && (input == null || !Files.isDirectory(input)))
+                throw new IllegalArgumentException("An existing input folder is required");
+
+            if(shardSize <= 0 || leaseMillis <= 0)
+                throw new IllegalArgumentException("The shard size and lease must be positive");
+
+            if(watch && journal != null)
+                throw new IllegalArgumentException("--watch cannot be used with --journal");
+
+            if(debounceMillis < 0 || watchMillis < 0)
+                throw new IllegalArgumentException("The debounce and watch times cannot be negative");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        if(journal != null) {
+            ShardCoordinator coordinator = new ShardCoordinator(journal, workerId, leaseMillis);
+
+            if(journalReport)
+                printReport(coordinator.getReport());
+            else
+                runShards(input, settings, coordinator, shardSize, leaseMillis);
+            return;
+        }
+
+        if(watch)
+            runWatching(input, settings, timings, history, debounceMillis, watchMillis);
+        else
+            run(input, settings, timings, history);
+    }
+
+    private static void run(Path input, ScaleSettings settings, Path timings, Path history)
+            throws InterruptedException, IOException {
+        run(new BatchScaler(settings), input, settings, timings, history, -1, 0);
+    }
+
+    private static void runWatching(Path input, ScaleSettings settings, Path timings, Path history,
+                                    long debounceMillis, long watchMillis)
+            throws InterruptedException, IOException {
+        BatchScaler batch = new BatchScaler(settings);
+        CountDownLatch reported = new CountDownLatch(1);
+
+        // on Ctrl-C, the images already queued are finished and reported
+        Thread shutdownHook = new Thread(() -> {
+            batch.stopWatching();
+            try {
+                reported.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try {
+            run(batch, input, settings, timings, history, debounceMillis, watchMillis);
+        } finally {
+            reported.countDown();
+        }
+    }
+
+    private static void run(BatchScaler batch, Path input, ScaleSettings settings, Path timings,
+                            Path history, long debounceMillis, long watchMillis)
+            throws InterruptedException, IOException {
+        AtomicInteger finished = new AtomicInteger();
+        GcMonitor gcMonitor = new GcMonitor();
+        gcMonitor.start();
+        long startMillis = System.currentTimeMillis();
+        long startTime = System.nanoTime();
+
+        System.out.println(new JsonLine()
+                .put("event", "start")
+                .put("input", input.toString())
+                .put("threads", settings.getThreads())
+                .put("mode", settings.getExecutionMode().name())
+                .put("order", settings.getJobOrder().name())
+                .put("virtualThreads", IOExecutors.isVirtualThreadsSupported())
+                .put("engine", settings.getScalingEngine().name())
+                .put("filter", settings.getResampleFilter().name())
+                .put("levels", settings.getLevels().toString())
+                .put("jpegQuality", settings.getJpegQuality())
+                .put("progressive", settings.isProgressive())
+                .put("pngCompression", settings.getPngCompressionLevel())
+                .put("watch", debounceMillis >= 0));
+
+        ScaleListener listener = scaler -> {
+            JsonLine line = new JsonLine()
+                    .put("event", "image")
+                    .put("file", scaler.getImage().getPath().toString())
+                    .put("milliseconds", scaler.getRequiredMilliseconds())
+                    .put("cacheHit", scaler.isCacheHit())
+                    .put("finished", finished.incrementAndGet())
+                    .put("discovered", batch.getDiscoveredImages());
+
+            if(scaler.getLatencyMilliseconds() >= 0)
+                line.put("latencyMilliseconds", scaler.getLatencyMilliseconds());
+            if(scaler.isDeduplicated())
+                line.put("duplicateOf", scaler.getDuplicateOf().getPath().toString());
+            if(scaler.isFailed())
+                line.put("failed", true);
+            System.out.println(line);
+        };
+
+        if(debounceMillis >= 0) {
+            batch.watch(input, debounceMillis, listener);
+
+            if(watchMillis > 0) {
+                Thread timer = new Thread(() -> {
+                    try {
+                        Thread.sleep(watchMillis);
+                        batch.stopWatching();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, "watch-timer");
+                timer.setDaemon(true);
+                timer.start();
+            }
+        }
+
+        else
+            batch.start(input, listener);
+        batch.awaitTermination();
+        gcMonitor.stop();
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        int images = batch.getFinishedImages();
+        ProgressTracker progress = batch.getProgress();
+        System.out.println(new JsonLine()
+                .put("event", "summary")
+                .put("images", images)
+                .put("cacheHits", batch.getCacheHits())
+                .put("levels", progress.getLevelsDone())
+                .put("bytesRead", progress.getBytesRead())
+                .put("bytesWritten", progress.getBytesWritten())
+                .put("bytesPerLevel", progress.getLevelsDone() == 0 ? 0 :
+                        progress.getBytesWritten() / progress.getLevelsDone())
+                .put("seconds", seconds)
+                .put("imagesPerSecond", images / seconds)
+                .put("megabytesReadPerSecond", progress.getBytesRead() / 1e6 / seconds)
+                .put("megabytesWrittenPerSecond", progress.getBytesWritten() / 1e6 / seconds));
+
+        RasterPool pool = RasterPool.getShared();
+        MemoryBudget memoryBudget = batch.getMemoryBudget();
+        System.out.println(new JsonLine()
+                .put("event", "memory")
+                .put("allocatedMegabytes", gcMonitor.getAllocatedBytes() / 1e6)
+                .put("allocationRate", gcMonitor.getAllocationRate())
+                .put("gcPauses", gcMonitor.getCollections())
+                .put("gcPauseMilliseconds", gcMonitor.getPauseMillis())
+                .put("gcMaxPauseMilliseconds", gcMonitor.getMaxPauseMillis())
+                .put("poolHits", pool.getHits())
+                .put("poolMisses", pool.getMisses())
+                .put("poolDropped", pool.getDropped())
+                .put("pooledMegabytes", pool.getPooledBytes() / 1e6)
+                .put("budgetMegabytes", settings.getMemoryBudgetBytes() / 1e6)
+                .put("peakAdmittedMegabytes", memoryBudget.getPeakBytes() / 1e6)
+                .put("admissionWaits", memoryBudget.getWaits())
+                .put("admissionWaitMilliseconds", memoryBudget.getWaitMillis()));
+
+        DeduplicationReport deduplication = batch.getDeduplicationReport();
+        System.out.println(new JsonLine()
+                .put("event", "dedup")
+                .put("decodesSaved", deduplication.getDuplicates())
+                .put("bytesSaved", deduplication.getBytesSaved())
+                .put("sourceBytesSaved", deduplication.getSourceBytes())
+                .put("linkedBytes", deduplication.getLinkedBytes())
+                .put("copiedBytes", deduplication.getCopiedBytes()));
+
+        FolderWatcher watcher = batch.getWatcher();
+        if(watcher != null)
+            System.out.println(new JsonLine()
+                    .put("event", "watch")
+                    .put("arrivals", batch.getDiscoveredImages())
+                    .put("overflows", watcher.getOverflows())
+                    .put("rescans", watcher.getRescans())
+                    .put("latencies", batch.getLatencyCount())
+                    .put("p50LatencyMilliseconds", batch.getLatencyPercentile(0.50))
+                    .put("p95LatencyMilliseconds", batch.getLatencyPercentile(0.95))
+                    .put("p99LatencyMilliseconds", batch.getLatencyPercentile(0.99)));
+
+        if(!settings.getExecutionMode().isStaged()) {
+            MakespanReport makespan = MakespanReport.of(
+                    batch.getScalers(), settings.getThreads(), Math.round(seconds * 1000));
+            System.out.println(new JsonLine()
+                    .put("event", "makespan")
+                    .put("threads", makespan.getThreads())
+                    .put("actualMilliseconds", makespan.getActualMillis())
+                    .put("discoveryOrderMilliseconds", makespan.getDiscoveryOrderMillis())
+                    .put("largestFirstMilliseconds", makespan.getLargestFirstMillis())
+                    .put("lowerBoundMilliseconds", makespan.getLowerBoundMillis()));
+        }
+
+        for(Map.Entry<PipelineStage, PhaseHistogram> entry :
+                PhaseHistogram.of(batch.getScalers()).entrySet()) {
+            PhaseHistogram histogram = entry.getValue();
+
+            if(histogram.getCount() > 0)
+                System.out.println(new JsonLine()
+                        .put("event", "phase")
+                        .put("phase", entry.getKey().name())
+                        .put("count", histogram.getCount())
+                        .put("p50Milliseconds", histogram.getPercentile(0.50) / 1e6)
+                        .put("p95Milliseconds", histogram.getPercentile(0.95) / 1e6)
+                        .put("p99Milliseconds", histogram.getPercentile(0.99) / 1e6));
+        }
+
+        if(timings != null)
+            PhaseTimings.writeCsv(batch.getScalers(), timings);
+
+        if(history != null)
+            new RunHistory(history).record(batch.getScalers(), settings, input,
+                                           startMillis, Math.round(seconds * 1000));
+    }
+
+    private static void runShards(Path input, ScaleSettings settings, ShardCoordinator coordinator,
+                                  int shardSize, long leaseMillis)
+            throws InterruptedException, IOException {
+        ShardWorker worker = new ShardWorker(coordinator, settings, leaseMillis);
+        AtomicInteger finished = new AtomicInteger();
+        GcMonitor gcMonitor = new GcMonitor();
+        gcMonitor.start();
+        long startTime = System.nanoTime();
+
+        System.out.println(new JsonLine()
+                .put("event", "start")
+                .put("input", input.toString())
+                .put("worker", coordinator.getWorkerId())
+                .put("threads", settings.getThreads())
+                .put("mode", settings.getExecutionMode().name())
+                .put("order", settings.getJobOrder().name())
+                .put("engine", settings.getScalingEngine().name())
+                .put("levels", settings.getLevels().toString()));
+
+        worker.run(input, shardSize,
+                scaler -> System.out.println(new JsonLine()
+                        .put("event", "image")
+                        .put("worker", coordinator.getWorkerId())
+                        .put("file", scaler.getImage().getPath().toString())
+                        .put("milliseconds", scaler.getRequiredMilliseconds())
+                        .put("cacheHit", scaler.isCacheHit())
+                        .put("finished", finished.incrementAndGet())),
+                shard -> {
+                    System.out.println(new JsonLine()
+                            .put("event", "shard")
+                            .put("worker", coordinator.getWorkerId())
+                            .put("shard", shard.getIndex())
+                            .put("generation", shard.getGeneration())
+                            .put("images", shard.getFiles().size()));
+
+                    try {
+                        printReport(coordinator.getReport());
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                });
+        gcMonitor.stop();
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        System.out.println(new JsonLine()
+                .put("event", "worker")
+                .put("worker", coordinator.getWorkerId())
+                .put("shards", worker.getShards())
+                .put("lostLeases", worker.getLostLeases())
+                .put("images", finished.get())
+                .put("seconds", seconds)
+                .put("imagesPerSecond", finished.get() / seconds)
+                .put("gcPauses", gcMonitor.getCollections())
+                .put("gcPauseMilliseconds", gcMonitor.getPauseMillis()));
+    }
+
+    private static void printReport(ShardReport report) {
+        System.out.println(new JsonLine()
+                .put("event", "shards")
+                .put("shards", report.getShards())
+                .put("done", report.getDoneShards())
+                .put("leased", report.getLeasedShards())
+                .put("expired", report.getExpiredLeases())
+                .put("pending", report.getPendingShards())
+                .put("reclaimed", report.getReclaimedLeases())
+                .put("images", report.getImages())
+                .put("finishedImages", report.getFinishedImages())
+                .put("cacheHits", report.getCacheHits())
+                .put("levels", report.getLevelsDone())
+                .put("bytesWritten", report.getBytesWritten())
+                .put("seconds", report.getElapsedSeconds())
+                .put("imagesPerSecond", report.getImagesPerSecond())
+                .put("megabytesWrittenPerSecond", report.getMegabytesWrittenPerSecond()));
+
+        for(ShardReport.Worker worker : report.getWorkers())
+            System.out.println(new JsonLine()
+                    .put("event", "shardWorker")
+                    .put("worker", worker.getId())
+                    .put("shards", worker.getShards())
+                    .put("images", worker.getImages())
+                    .put("milliseconds", worker.getMilliseconds())
+                    .put("imagesPerSecond", worker.getImagesPerSecond()));
+    }
+
+    private static String value(String[] args, int i) {
+        if(i >= args.length)
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+
+        return args[i];
+    }
+
+    private static String enumName(String value) {
+        return value.toUpperCase().replace('-', '_');
+    }
+
+    private static void parseStageThreads(String value, ScaleSettings settings) {
+        for(String stageThreads : value.split(",")) {
+            String[] parts = stageThreads.split("=");
+
+            if(parts.length != 2)
+                throw new IllegalArgumentException("Invalid stage threads: " + stageThreads);
+
+            settings.setStageThreads(PipelineStage.valueOf(enumName(parts[0].trim())),
+                                     Integer.parseInt(parts[1].trim()));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package imagescalerfx.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One benchmark with all its parameters fixed. It is measured like a JMH
+ * throughput benchmark: some warmup iterations that are discarded, and then
+ * several iterations of a fixed duration where every thread runs the
+ * operation as many times as it can.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class BenchmarkCase {
+    private static final AtomicLong sink = new AtomicLong();
+
+    private String benchmark;
+    private BenchmarkInput input;
+    private int scale;
+    private int threads;
+    private Operation operation;
+    private volatile long outputBytes;
+
+    /**
+     * Initialize a case from its parameters and the operation measured.
+     * @param benchmark Name of the benchmark, e.g. "decode" or "scale.java2d".
+     * @param input Image used by the operation.
+     * @param scale Scaling percentage, or 0 if the operation does not scale.
+     * @param threads Number of threads that run the operation at once.
+     * @param operation Operation measured.
+     */
+    public BenchmarkCase(String benchmark, BenchmarkInput input, int scale, int threads,
+                         Operation operation) {
+        this.benchmark = benchmark;
+        this.input = input;
+        this.scale = scale;
+        this.threads = threads;
+        this.operation = operation;
+    }
+
+    /**
+     * Returns the name of the benchmark.
+     * @return Name of the benchmark.
+     */
+    public String getBenchmark() {
+        return benchmark;
+    }
+
+    /**
+     * Returns a text with the benchmark and its parameters, to select cases.
+     * @return Identifier of the case.
+     */
+    public String getId() {
+        return benchmark + ":" + input.getName() + ":" + input.getFormat()
+                + ":" + scale + ":" + threads;
+    }
+
+    /**
+     * Runs the warmup and measurement iterations.
+     * @param warmupIterations Iterations run before measuring.
+     * @param iterations Iterations measured.
+     * @param iterationMillis Duration of each iteration.
+     * @return Result of the measured iterations.
+     * @throws InterruptedException If the benchmark is interrupted.
+     */
+    public BenchmarkResult measure(int warmupIterations, int iterations, long iterationMillis)
+            throws InterruptedException {
+        for(int i = 0; i < warmupIterations; i++)
+            runIteration(iterationMillis);
+
+        double[] scores = new double[iterations];
+        for(int i = 0; i < iterations; i++)
+            scores[i] = runIteration(iterationMillis);
+
+        return new BenchmarkResult(benchmark, input.getName(), input.getSize(),
+                                   input.getFormat(), scale, threads, scores, outputBytes);
+    }
+
+    private double runIteration(long iterationMillis) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        long[] elapsed = new long[threads];
+
+        for(int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    long startTime = System.nanoTime();
+                    long deadline = startTime + iterationMillis * 1_000_000;
+                    long now;
+
+                    // at least one operation, even if it is longer than the iteration
+                    do {
+                        Object result = operation.run(thread);
+                        sink.addAndGet(System.identityHashCode(result));
+                        // encoders return the encoded file, whose size is reported
+                        if(result instanceof byte[])
+                            outputBytes = ((byte[]) result).length;
+                        operations.increment();
+                    } while((now = System.nanoTime()) < deadline);
+
+                    elapsed[thread] = now - startTime;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }, "benchmark-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        start.countDown();
+        long longest = 0;
+        for(int t = 0; t < threads; t++) {
+            workers.get(t).join();
+            longest = Math.max(longest, elapsed[t]);
+        }
+
+        return longest == 0 ? 0 : operations.sum() / (longest / 1e9);
+    }
+
+    /**
+     * Operation measured by a benchmark. It returns its result so the JIT
+     * cannot remove it.
+     */
+    public interface Operation {
+        /**
+         * Runs the operation once.
+         * @param thread Index of the thread that runs it, from 0.
+         * @return Result of the operation.
+         * @throws Exception If the operation fails.
+         */
+        Object run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,136 @@
+package imagescalerfx.benchmark;
+
+import imagescalerfx.utils.IOUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Image used by the benchmarks, kept encoded (in memory and in a file) and
+ * decoded, so each benchmark only measures the phase that it is about.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class BenchmarkInput {
+    private String name;
+    private String format;
+    private byte[] bytes;
+    private BufferedImage image;
+    private Path path;
+
+    private BenchmarkInput(String name, String format, byte[] bytes,
+                           BufferedImage image, Path path) {
+        this.name = name;
+        this.format = format;
+        this.bytes = bytes;
+        this.image = image;
+        this.path = path;
+    }
+
+    /**
+     * Creates an input from an image file, such as the samples of the
+     * images folder.
+     * @param path Image file.
+     * @return Input, or null if the image could not be read.
+     */
+    public static BenchmarkInput of(Path path) {
+        String fileName = path.getFileName().toString();
+        byte[] bytes = IOUtils.readBytes(path);
+
+        if(bytes == null)
+            return null;
+
+        BufferedImage image = IOUtils.decode(bytes, 1);
+        return image == null ? null : new BenchmarkInput(
+                fileName, fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(),
+                bytes, image, path);
+    }
+
+    /**
+     * Creates a synthetic input of the given size and format: smooth
+     * gradients with some noise, so it is neither trivial to compress nor
+     * pure noise. The same size always gives the same pixels.
+     * @param width Width of the image.
+     * @param height Height of the image.
+     * @param format Format of the image (jpg, png, gif or bmp).
+     * @param folder Folder where the encoded image is stored.
+     * @return Input, or null if the image could not be encoded.
+     * @throws IOException If the image could not be stored.
+     */
+    public static BenchmarkInput synthetic(int width, int height, String format,
+                                           Path folder) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width * 31L + height);
+
+        for(int y = 0; y < height; y++)
+            for(int x = 0; x < width; x++) {
+                int noise = random.nextInt(32);
+                int r = (x * 255 / width + noise) & 0xFF;
+                int g = (y * 255 / height + noise) & 0xFF;
+                int b = ((x + y) * 127 / (width + height) + noise * 2) & 0xFF;
+                image.setRGB(x, y, r << 16 | g << 8 | b);
+            }
+
+        Path path = folder.resolve("synthetic_" + width + "x" + height + "." + format);
+        byte[] bytes = IOUtils.encode(image, path.toString());
+
+        if(bytes == null)
+            return null;
+
+        Files.write(path, bytes);
+        return new BenchmarkInput(path.getFileName().toString(), format,
+                                  bytes, IOUtils.decode(bytes, 1), path);
+    }
+
+    /**
+     * Returns the name of the image file.
+     * @return Name of the image.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the format of the image, from its extension.
+     * @return Format of the image.
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the size of the image, as width x height.
+     * @return Size of the image.
+     */
+    public String getSize() {
+        return image.getWidth() + "x" + image.getHeight();
+    }
+
+    /**
+     * Returns the contents of the encoded image.
+     * @return Encoded image.
+     */
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the decoded image.
+     * @return Decoded image.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the file of the encoded image.
+     * @return Image file.
+     */
+    public Path getPath() {
+        return path;
+    }
+}
@@ -0,0 +1,122 @@
+package imagescalerfx.benchmark;
+
+import imagescalerfx.utils.JsonLine;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Result of a benchmark case: the throughput of every measured iteration,
+ * with its mean and error, and the size of the output for the encoders, as
+ * a JSON line or a CSV row.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class BenchmarkResult {
+    /**
+     * Header of the CSV rows.
+     */
+    public static final String CSV_HEADER =
+            "benchmark,image,size,format,scale,threads,opsPerSecond,error,msPerOp,iterations,outputBytes";
+
+    private String benchmark;
+    private String image;
+    private String size;
+    private String format;
+    private int scale;
+    private int threads;
+    private double[] scores;
+    private long outputBytes;
+
+    /**
+     * Initialize a result from the parameters of the case and its scores.
+     * @param benchmark Name of the benchmark.
+     * @param image Name of the image.
+     * @param size Size of the image, as width x height.
+     * @param format Format of the image.
+     * @param scale Scaling percentage, or 0 if the operation does not scale.
+     * @param threads Number of threads.
+     * @param scores Operations per second of each iteration.
+     * @param outputBytes Size of the encoded output, or 0 if the operation
+     *                    does not encode.
+     */
+    public BenchmarkResult(String benchmark, String image, String size, String format,
+                           int scale, int threads, double[] scores, long outputBytes) {
+        this.benchmark = benchmark;
+        this.image = image;
+        this.size = size;
+        this.format = format;
+        this.scale = scale;
+        this.threads = threads;
+        this.scores = scores;
+        this.outputBytes = outputBytes;
+    }
+
+    /**
+     * Returns the mean throughput of all the threads.
+     * @return Operations per second.
+     */
+    public double getScore() {
+        return Arrays.stream(scores).average().orElse(0);
+    }
+
+    /**
+     * Returns the half width of the 95% interval of the throughput
+     * (normal approximation), or 0 with a single iteration.
+     * @return Error of the throughput, in operations per second.
+     */
+    public double getError() {
+        if(scores.length < 2)
+            return 0;
+
+        double mean = getScore();
+        double variance = Arrays.stream(scores).map(s -> (s - mean) * (s - mean)).sum()
+                          / (scores.length - 1);
+        return 1.96 * Math.sqrt(variance / scores.length);
+    }
+
+    /**
+     * Returns the mean time of one operation on one thread.
+     * @return Milliseconds per operation.
+     */
+    public double getMillisecondsPerOperation() {
+        double score = getScore();
+        return score == 0 ? 0 : threads * 1000.0 / score;
+    }
+
+    /**
+     * Returns the result as a JSON line.
+     * @return JSON object of the result.
+     */
+    public String toJson() {
+        return new JsonLine()
+                .put("event", "result")
+                .put("benchmark", benchmark)
+                .put("image", image)
+                .put("size", size)
+                .put("format", format)
+                .put("scale", scale)
+                .put("threads", threads)
+                .put("opsPerSecond", getScore())
+                .put("error", getError())
+                .put("msPerOp", getMillisecondsPerOperation())
+                .put("iterations", scores.length)
+                .put("outputBytes", outputBytes)
+                .toString();
+    }
+
+    /**
+     * Returns the result as a CSV row, with the columns of CSV_HEADER.
+     * @return CSV row of the result.
+     */
+    public String toCsv() {
+        return String.join(",", benchmark, image, size, format,
+                String.valueOf(scale), String.valueOf(threads),
+                String.format(Locale.ROOT, "%.3f", getScore()),
+                String.format(Locale.ROOT, "%.3f", getError()),
+                String.format(Locale.ROOT, "%.3f", getMillisecondsPerOperation()),
+                String.valueOf(scores.length),
+                String.valueOf(outputBytes));
+    }
+}
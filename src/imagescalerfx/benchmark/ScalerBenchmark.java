@@ -0,0 +1,287 @@
+package imagescalerfx.benchmark;
+
+import imagescalerfx.utils.*;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Entry point of the benchmarks of the scaler. It measures separately the
+ * reading (into the heap or mapped), the decoding (from memory, from the
+ * file or from a mapping), every scaling strategy, the encoding and the whole
+ * IOUtils.resize, over synthetic images of several sizes and formats and
+ * the samples of the images folder, for several scales and thread counts.
+ * <br/>
+ * Results are written as JSON lines or, if the output file ends in .csv,
+ * as CSV, so they can be compared between releases.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ScalerBenchmark {
+    private static final String USAGE =
+            "Usage: ScalerBenchmark [options]\n"
+            + "  --samples <folder>    Sample images, or none (default: images)\n"
+            + "  --sizes <list>        Synthetic image sizes (default: 640x480,3840x2160)\n"
+            + "  --formats <list>      Synthetic image formats (default: jpg,png,gif,bmp)\n"
+            + "  --scales <list>       Scaling percentages (default: 10,50,90)\n"
+            + "  --threads <list>      Thread counts (default: 1 and available processors)\n"
+            + "  --qualities <list>    JPEG qualities of the encoders (default: 0.5,0.75,0.9)\n"
+            + "  --png-levels <list>   PNG compression levels of the encoders (default: 1,4,9)\n"
+            + "  --include <regex>     Only the cases whose id matches, e.g. ^scale\\.\n"
+            + "  --warmup <n>          Warmup iterations (default: 1)\n"
+            + "  --iterations <n>      Measured iterations (default: 3)\n"
+            + "  --time <ms>           Duration of each iteration (default: 500)\n"
+            + "  --output <file>       Results file, .csv or JSON lines (default: standard output)";
+
+    private Path samples = Path.of("images");
+    private List<int[]> sizes = List.of(new int[]{640, 480}, new int[]{3840, 2160});
+    private List<String> formats = List.of("jpg", "png", "gif", "bmp");
+    private int[] scales = {10, 50, 90};
+    private int[] threads = Arrays.stream(new int[]{1, Runtime.getRuntime().availableProcessors()})
+                                  .distinct().toArray();
+    private double[] jpegQualities = {0.5, 0.75, 0.9};
+    private int[] pngLevels = {1, 4, 9};
+    private Pattern include = Pattern.compile("");
+    private int warmupIterations = 1;
+    private int iterations = 3;
+    private long iterationMillis = 500;
+    private Path output;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+
+        ScalerBenchmark benchmark = new ScalerBenchmark();
+        try {
+            benchmark.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        benchmark.run();
+    }
+
+    private void parse(String[] args) {
+        for(int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--samples":
+                    String folder = value(args, ++i);
+                    samples = folder.equals("none") ? null : Path.of(folder);
+                    break;
+                case "--sizes": sizes = parseSizes(value(args, ++i)); break;
+                case "--formats": formats = List.of(value(args, ++i).toLowerCase().split(",")); break;
+                case "--scales": scales = parseInts(value(args, ++i)); break;
+                case "--threads": threads = parseInts(value(args, ++i)); break;
+                case "--qualities":
+                    jpegQualities = Arrays.stream(value(args, ++i).split(","))
+                                          .map(String::trim)
+                                          .mapToDouble(Double::parseDouble)
+                                          .toArray();
+                    break;
+                case "--png-levels": pngLevels = parseInts(value(args, ++i)); break;
+                case "--include": include = Pattern.compile(value(args, ++i)); break;
+                case "--warmup": warmupIterations = Integer.parseInt(value(args, ++i)); break;
+                case "--iterations": iterations = Math.max(1, Integer.parseInt(value(args, ++i))); break;
+                case "--time": iterationMillis = Long.parseLong(value(args, ++i)); break;
+                case "--output": output = Path.of(value(args, ++i)); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Path workFolder = Files.createTempDirectory("imagescalerfx-benchmark");
+        boolean csv = output != null && output.toString().toLowerCase().endsWith(".csv");
+
+        try (PrintStream results = output == null ? null :
+                new PrintStream(Files.newOutputStream(output), true, StandardCharsets.UTF_8)) {
+            PrintStream out = results == null ? System.out : results;
+
+            if(csv)
+                out.println(BenchmarkResult.CSV_HEADER);
+
+            else
+                out.println(new JsonLine()
+                        .put("event", "start")
+                        .put("java", System.getProperty("java.version"))
+                        .put("vm", System.getProperty("java.vm.name"))
+                        .put("processors", Runtime.getRuntime().availableProcessors())
+                        .put("maxMemory", Runtime.getRuntime().maxMemory())
+                        .put("warmupIterations", warmupIterations)
+                        .put("iterations", iterations)
+                        .put("iterationMillis", iterationMillis));
+
+            for(BenchmarkCase benchmarkCase : createCases(workFolder)) {
+                if(!include.matcher(benchmarkCase.getId()).find())
+                    continue;
+
+                BenchmarkResult result =
+                        benchmarkCase.measure(warmupIterations, iterations, iterationMillis);
+
+                out.println(csv ? result.toCsv() : result.toJson());
+                if(results != null)
+                    System.out.println(result.toJson());
+            }
+        } finally {
+            IOUtils.deleteDirectory(workFolder);
+        }
+    }
+
+    private List<BenchmarkCase> createCases(Path workFolder) throws IOException {
+        List<BenchmarkInput> codecInputs = new ArrayList<>();
+        List<BenchmarkInput> scaleInputs = new ArrayList<>();
+
+        for(int[] size : sizes)
+            for(String format : formats) {
+                BenchmarkInput input =
+                        BenchmarkInput.synthetic(size[0], size[1], format, workFolder);
+
+                if(input == null) {
+                    System.err.println("Format not supported: " + format);
+                    continue;
+                }
+
+                codecInputs.add(input);
+                // the pixels are the same in every format
+                if(format.equals(formats.get(0)))
+                    scaleInputs.add(input);
+            }
+
+        if(samples != null)
+            for(ImageData image : IOUtils.getImages(samples)) {
+                BenchmarkInput input = BenchmarkInput.of(image.getPath());
+                if(input != null) {
+                    codecInputs.add(input);
+                    scaleInputs.add(input);
+                }
+            }
+
+        List<BenchmarkCase> cases = new ArrayList<>();
+        ScaleSettings settings = new ScaleSettings();
+
+        for(int threadCount : threads) {
+            for(BenchmarkInput input : codecInputs) {
+                cases.add(new BenchmarkCase("read.heap", input, 0, threadCount,
+                        thread -> IOUtils.readBytes(input.getPath())));
+                cases.add(new BenchmarkCase("read.mapped", input, 0, threadCount,
+                        thread -> IOUtils.map(input.getPath()).load()));
+                cases.add(new BenchmarkCase("decode", input, 0, threadCount,
+                        thread -> IOUtils.decode(input.getBytes(), 1)));
+                cases.add(new BenchmarkCase("decode.file", input, 0, threadCount,
+                        thread -> IOUtils.read(input.getPath().toString())));
+                cases.add(new BenchmarkCase("decode.mapped", input, 0, threadCount,
+                        thread -> IOUtils.decode(IOUtils.map(input.getPath()), 1)));
+                cases.add(new BenchmarkCase("encode", input, 0, threadCount,
+                        thread -> IOUtils.encode(input.getImage(), input.getName())));
+                addEncoderCases(cases, input, threadCount);
+
+                for(int scale : scales) {
+                    cases.add(new BenchmarkCase("decode.subsampled", input, scale, threadCount,
+                            thread -> ImagePyramid.decode(input.getBytes(), scale / 100.0, settings)));
+                    cases.add(new BenchmarkCase("resize", input, scale, threadCount,
+                            thread -> {
+                                String outputPath = workFolder.resolve(
+                                        "resize_" + thread + "_" + input.getName()).toString();
+                                IOUtils.resize(input.getPath().toString(), outputPath,
+                                               scale / 100.0, settings);
+                                return outputPath;
+                            }));
+                }
+            }
+
+            for(BenchmarkInput input : scaleInputs)
+                for(int scale : scales)
+                    addScaleCases(cases, input, scale, threadCount, settings);
+        }
+
+        return cases;
+    }
+
+    private void addScaleCases(List<BenchmarkCase> cases, BenchmarkInput input, int scale,
+                               int threadCount, ScaleSettings settings) {
+        BufferedImage image = input.getImage();
+        int width = Math.max(1, image.getWidth() * scale / 100);
+        int height = Math.max(1, image.getHeight() * scale / 100);
+
+        cases.add(new BenchmarkCase("scale.java2d", input, scale, threadCount,
+                thread -> IOUtils.scale(image, width, height)));
+
+        BufferedImage intRaster = Resampler.toIntRaster(image);
+        for(ResampleFilter filter : ResampleFilter.values())
+            cases.add(new BenchmarkCase("scale.resampler." + filter.name().toLowerCase(),
+                    input, scale, threadCount,
+                    thread -> Resampler.resample(intRaster, width, height, filter)));
+
+        List<Dimension> sizes = List.of(new Dimension(width, height));
+        cases.add(new BenchmarkCase("scale.streaming", input, scale, threadCount,
+                thread -> StreamingScaler.scale(input.getPath().toString(), sizes, settings)));
+    }
+
+    private void addEncoderCases(List<BenchmarkCase> cases, BenchmarkInput input,
+                                 int threadCount) {
+        String format = input.getFormat();
+
+        if(format.equals("jpg") || format.equals("jpeg"))
+            for(double quality : jpegQualities)
+                for(boolean progressive : new boolean[]{false, true}) {
+                    ScaleSettings settings = new ScaleSettings();
+                    settings.setJpegQuality((float) quality);
+                    settings.setProgressive(progressive);
+
+                    cases.add(new BenchmarkCase(
+                            "encode.jpeg.q" + Math.round(quality * 100)
+                                    + (progressive ? ".progressive" : ""),
+                            input, 0, threadCount,
+                            thread -> IOUtils.encode(input.getImage(), input.getName(), settings)));
+                }
+
+        else if(format.equals("png"))
+            for(int level : pngLevels) {
+                ScaleSettings settings = new ScaleSettings();
+                settings.setPngCompressionLevel(level);
+
+                cases.add(new BenchmarkCase("encode.png.level" + level, input, 0, threadCount,
+                        thread -> IOUtils.encode(input.getImage(), input.getName(), settings)));
+            }
+    }
+
+    private static String value(String[] args, int i) {
+        if(i >= args.length)
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+
+        return args[i];
+    }
+
+    private static int[] parseInts(String value) {
+        return Arrays.stream(value.split(","))
+                     .map(String::trim)
+                     .mapToInt(Integer::parseInt)
+                     .toArray();
+    }
+
+    private static List<int[]> parseSizes(String value) {
+        List<int[]> sizes = new ArrayList<>();
+
+        for(String size : value.toLowerCase().split(",")) {
+            String[] parts = size.trim().split("x");
+
+            if(parts.length != 2)
+                throw new IllegalArgumentException("Invalid size: " + size);
+
+            sizes.add(new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])});
+        }
+
+        return sizes;
+    }
+}
@@ -0,0 +1,69 @@
+package imagescalerfx.utils;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task that scales a band of rows of an image, splitting itself
+ * in halves while the band is bigger than a given number of pixels.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class BandScaleTask extends RecursiveAction {
+    /**
+     * Number of output pixels under which a band is not split any more.
+     */
+    public static final int BAND_PIXELS = 512 * 1024;
+
+    private static final long serialVersionUID = 1L;
+
+    private BufferedImage inputImage;
+    private BufferedImage outputImage;
+    private int fromRow;
+    private int toRow;
+
+    /**
+     * Initialize a task that scales the rows between fromRow (included)
+     * and toRow (excluded) of the output image.
+     * @param inputImage Image to scale.
+     * @param outputImage Image where the scaled rows are drawn.
+     * @param fromRow First output row.
+     * @param toRow Last output row (excluded).
+     */
+    public BandScaleTask(BufferedImage inputImage, BufferedImage outputImage,
+                         int fromRow, int toRow) {
+        this.inputImage = inputImage;
+        this.outputImage = outputImage;
+        this.fromRow = fromRow;
+        this.toRow = toRow;
+    }
+
+    @Override
+    protected void compute() {
+        int rows = toRow - fromRow;
+
+        if(rows > 1 && (long) rows * outputImage.getWidth() > BAND_PIXELS) {
+            int middle = fromRow + rows / 2;
+            invokeAll(new BandScaleTask(inputImage, outputImage, fromRow, middle),
+                      new BandScaleTask(inputImage, outputImage, middle, toRow));
+        }
+
+        else
+            scaleBand();
+    }
+
+    private void scaleBand() {
+        // each band draws through its own sub-image, sharing the raster
+        BufferedImage band = outputImage.getSubimage(
+                0, fromRow, outputImage.getWidth(), toRow - fromRow);
+
+        Graphics2D g2d = band.createGraphics();
+        g2d.setComposite(AlphaComposite.Src);
+        g2d.drawImage(inputImage, 0, -fromRow,
+                outputImage.getWidth(), outputImage.getHeight(), null);
+        g2d.dispose();
+    }
+}
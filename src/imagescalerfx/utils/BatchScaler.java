@@ -0,0 +1,416 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class in charge of scaling all the images of a folder with the given
+ * settings. It does not depend on JavaFX, so it is shared by the main view
+ * and the command line entry point.<br/>
+ * The images are discovered in a background thread (see ImageDiscovery)
+ * and consumed from a bounded queue by the workers of the executor, so the
+ * scaling starts as soon as the first image is found. In the pipeline modes
+ * the images are consumed by a ScalePipeline instead.<br/>
+ * A batch can also watch its folder (see FolderWatcher) and scale the
+ * images as they arrive, until it is stopped, keeping the latency of each
+ * image from its arrival until its levels are written. Since it runs until
+ * it is stopped, it only keeps the scalers of the last WATCHED_SCALERS
+ * images, and totals for the rest.<br/>
+ * If the settings ask for it, the byte-identical images of a batch are
+ * scaled once (see SourceDeduplicator).
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class BatchScaler {
+    /**
+     * Number of the most recent scalers (and distinct contents for the
+     * deduplication) kept by a batch that watches its folder.
+     */
+    public static final int WATCHED_SCALERS = 1000;
+
+    private ScaleSettings settings;
+    private List<ThreadScaler> scalers;
+    private ImageDiscovery discovery;
+    private FolderWatcher watcher;
+    private PhaseHistogram latencies;
+    private ExecutorService executor;
+    private ScalePipeline pipeline;
+    private ProgressTracker progress;
+    private MemoryBudget memoryBudget;
+    private SourceDeduplicator deduplicator;
+    private DeduplicationReport deduplication;
+    private volatile boolean stopped;
+
+    /**
+     * Initialize a batch from the options used to scale the images.
+     * @param settings Options used to scale the images.
+     */
+    public BatchScaler(ScaleSettings settings) {
+        this.settings = settings;
+        scalers = Collections.synchronizedList(new ArrayList<>());
+        progress = new ProgressTracker(settings.getLevels().size());
+        memoryBudget = new MemoryBudget(settings.getMemoryBudgetBytes());
+        latencies = new PhaseHistogram();
+        deduplicator = settings.isDeduplicateSources() ? new SourceDeduplicator() : null;
+        deduplication = new DeduplicationReport();
+    }
+
+    /**
+     * Starts discovering the images of the input folder and scaling them
+     * on a new executor of the execution mode of the settings.
+     * @param inputRoot Folder with the images.
+     * @param listener Listener notified each time an image is finished.
+     */
+    public void start(Path inputRoot, ScaleListener listener) {
+        start(inputRoot, null, listener);
+    }
+
+    /**
+     * Starts scaling the given images of the input folder, instead of
+     * discovering all of them, on a new executor of the execution mode of
+     * the settings.
+     * @param inputRoot Folder with the images.
+     * @param files Images to scale, or null to discover all the images of
+     *              the input folder.
+     * @param listener Listener notified each time an image is finished.
+     */
+    public void start(Path inputRoot, List<Path> files, ScaleListener listener) {
+        RasterPool.getShared().setCapacity(settings.getRasterPoolBytes());
+
+        BlockingQueue<ImageData> queue =
+                new ArrayBlockingQueue<>(settings.getDiscoveryQueueCapacity());
+
+        discovery = new ImageDiscovery(inputRoot, settings.getOutputRoot(),
+                                       settings.isRecursive(), queue, progress);
+        discovery.setOrder(settings.getJobOrder(), settings.getLevels());
+        discovery.setFiles(files);
+        Thread discoveryThread = new Thread(discovery, "image-discovery");
+        discoveryThread.setDaemon(true);
+        discoveryThread.start();
+
+        startWorkers(inputRoot, queue, listener);
+    }
+
+    /**
+     * Starts watching the input folder and scaling the images already in
+     * it and the ones that arrive, on a new executor of the execution mode
+     * of the settings, until stopWatching is called. The images are scaled
+     * in the order they arrive.
+     * @param inputRoot Folder with the images.
+     * @param debounceMillis Time a file must stay unchanged before it is
+     *                       scaled.
+     * @param listener Listener notified each time an image is finished.
+     * @throws IOException If the folder could not be watched.
+     */
+    public void watch(Path inputRoot, long debounceMillis, ScaleListener listener)
+            throws IOException {
+        RasterPool.getShared().setCapacity(settings.getRasterPoolBytes());
+
+        BlockingQueue<ImageData> queue =
+                new ArrayBlockingQueue<>(settings.getDiscoveryQueueCapacity());
+
+        if(deduplicator != null)
+            deduplicator = new SourceDeduplicator(WATCHED_SCALERS);
+
+        watcher = new FolderWatcher(inputRoot, settings.getOutputRoot(),
+                                    settings.isRecursive(), queue, progress, debounceMillis);
+        Thread watcherThread = new Thread(watcher, "folder-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+
+        startWorkers(inputRoot, queue, listener);
+    }
+
+    /**
+     * Stops watching the input folder. The images already queued are still
+     * scaled, and then the batch finishes.
+     */
+    public void stopWatching() {
+        if(watcher != null)
+            watcher.stop();
+    }
+
+    /**
+     * Stops the batch: no more images are taken from the queue (the rest
+     * are skipped), and the batch finishes once the images being scaled
+     * are finished.
+     */
+    public void stop() {
+        stopped = true;
+
+        if(discovery != null)
+            discovery.stop();
+        if(pipeline != null)
+            pipeline.stop();
+        stopWatching();
+    }
+
+    /**
+     * Returns if the batch has been stopped before scaling all its images.
+     * @return True if the batch has been stopped.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Returns the watcher of the input folder.
+     * @return Folder watcher, or null if the batch does not watch its folder.
+     */
+    public FolderWatcher getWatcher() {
+        return watcher;
+    }
+
+    /**
+     * Returns a percentile of the latency of the watched images, from
+     * their arrival until all their levels were written.
+     * @param percentile Fraction of the images, from 0 to 1.
+     * @return Milliseconds of the percentile, or 0 if no watched image has
+     *         finished.
+     */
+    public double getLatencyPercentile(double percentile) {
+        synchronized (latencies) {
+            return latencies.getPercentile(percentile) / 1e6;
+        }
+    }
+
+    /**
+     * Returns the number of watched images finished.
+     * @return Number of latencies measured.
+     */
+    public int getLatencyCount() {
+        synchronized (latencies) {
+            return latencies.getCount();
+        }
+    }
+
+    /**
+     * Scales all the images of the input folder and waits until they finish.
+     * @param inputRoot Folder with the images.
+     * @param listener Listener notified each time an image is finished.
+     * @return Threads that scaled the images, with their timings.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public List<ThreadScaler> run(Path inputRoot, ScaleListener listener)
+            throws InterruptedException {
+        start(inputRoot, listener);
+        awaitTermination();
+        return scalers;
+    }
+
+    /**
+     * Waits until every image has been scaled.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public void awaitTermination() throws InterruptedException {
+        if(pipeline != null)
+            pipeline.awaitTermination();
+
+        else
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /**
+     * Returns if every image has been scaled.
+     * @return True if the batch has finished.
+     */
+    public boolean isTerminated() {
+        if(pipeline != null)
+            return pipeline.isTerminated();
+
+        return executor != null && executor.isTerminated();
+    }
+
+    /**
+     * Returns the threads created so far, one for each image taken from the
+     * queue (only the last WATCHED_SCALERS if the batch watches its
+     * folder). The list is synchronized.
+     * @return Threads that scale the images.
+     */
+    public List<ThreadScaler> getScalers() {
+        return scalers;
+    }
+
+    /**
+     * Returns the work saved by scaling the byte-identical images once,
+     * for every image finished so far.
+     * @return Report of the deduplication.
+     */
+    public DeduplicationReport getDeduplicationReport() {
+        return deduplication;
+    }
+
+    /**
+     * Returns the number of images found so far.
+     * @return Number of images discovered.
+     */
+    public int getDiscoveredImages() {
+        return progress.getDiscoveredImages();
+    }
+
+    /**
+     * Returns if the whole input folder has been walked.
+     * @return True if the discovery has finished.
+     */
+    public boolean isDiscoveryFinished() {
+        return progress.isDiscoveryFinished();
+    }
+
+    /**
+     * Returns the number of images already scaled (or skipped).
+     * @return Number of images finished.
+     */
+    public int getFinishedImages() {
+        return progress.getFinishedImages();
+    }
+
+    /**
+     * Returns the number of images skipped because they were up to date.
+     * @return Number of cache hits.
+     */
+    public int getCacheHits() {
+        return progress.getCacheHits();
+    }
+
+    /**
+     * Returns the progress published by the workers of the batch.
+     * @return Progress of the batch.
+     */
+    public ProgressTracker getProgress() {
+        return progress;
+    }
+
+    /**
+     * Returns the budget that admits the images before they are decoded.
+     * @return Memory budget of the batch.
+     */
+    public MemoryBudget getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Returns how many jobs are waiting in front of each stage of the
+     * pipeline.
+     * @return Number of jobs waiting by stage, or null if the batch does
+     *         not run in pipeline mode.
+     */
+    public Map<PipelineStage, Integer> getQueueDepths() {
+        return pipeline == null ? null : pipeline.getQueueDepths();
+    }
+
+    /**
+     * Returns the folder for the scaled instances of an image: a subfolder
+     * with the name of the image, next to it or in the same relative
+     * location inside the output folder of the settings.
+     * @param inputRoot Folder with the images.
+     * @param image Image to be scaled.
+     * @return Folder for the scaled instances.
+     */
+    public Path getFolderPath(Path inputRoot, ImageData image) {
+        String fileName = image.getPath().getFileName().toString();
+        Path parent = image.getPath().getParent();
+
+        if(settings.getOutputRoot() != null)
+            parent = settings.getOutputRoot().resolve(
+                    inputRoot.toAbsolutePath().normalize()
+                             .relativize(parent.toAbsolutePath().normalize()));
+
+        return parent.resolve(fileName.substring(0, fileName.lastIndexOf('.')));
+    }
+
+    private void startWorkers(Path inputRoot, BlockingQueue<ImageData> queue,
+                              ScaleListener listener) {
+        if(settings.getExecutionMode().isStaged()) {
+            pipeline = new ScalePipeline(settings, queue,
+                                         image -> createScaler(inputRoot, image, listener),
+                                         this::scalerFinished, progress::batchFinished,
+                                         memoryBudget);
+            pipeline.start();
+            return;
+        }
+
+        AtomicInteger runningWorkers = new AtomicInteger(settings.getThreads());
+        executor = settings.getExecutionMode().createExecutor(settings.getThreads());
+        for(int i = 0; i < settings.getThreads(); i++)
+            executor.execute(() -> {
+                scaleImages(inputRoot, queue, listener);
+
+                if(runningWorkers.decrementAndGet() == 0)
+                    progress.batchFinished();
+            });
+        executor.shutdown();
+    }
+
+    private void scaleImages(Path inputRoot, BlockingQueue<ImageData> queue,
+                             ScaleListener listener) {
+        try {
+            ImageData image;
+            while((image = queue.take()) != ImageDiscovery.END_OF_IMAGES) {
+                if(stopped)
+                    continue;
+
+                ThreadScaler scaler = createScaler(inputRoot, image, listener);
+
+                try {
+                    scaler.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+
+                scaler.whenFinished(() -> scalerFinished(scaler));
+            }
+
+            // leave the mark for the rest of the workers
+            queue.put(ImageDiscovery.END_OF_IMAGES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ThreadScaler createScaler(Path inputRoot, ImageData image, ScaleListener listener) {
+        ThreadScaler scaler = new ThreadScaler(
+                image, getFolderPath(inputRoot, image), settings, listener);
+        scaler.setProgressTracker(progress);
+        scaler.setMemoryBudget(memoryBudget);
+        scaler.setDeduplicator(deduplicator);
+        scalers.add(scaler);
+        return scaler;
+    }
+
+    private void scalerFinished(ThreadScaler scaler) {
+        deduplication.add(scaler);
+
+        if(watcher != null) {
+            watcher.imageFinished(scaler.getImage());
+            forgetOldScalers();
+        }
+
+        if(scaler.getLatencyMilliseconds() >= 0)
+            synchronized (latencies) {
+                latencies.add(scaler.getLatencyMilliseconds() * 1_000_000);
+            }
+
+        progress.imageFinished(scaler.isCacheHit());
+    }
+
+    private void forgetOldScalers() {
+        synchronized (scalers) {
+            Iterator<ThreadScaler> oldest = scalers.iterator();
+
+            while(scalers.size() > WATCHED_SCALERS && oldest.hasNext())
+                if(oldest.next().isFinished())
+                    oldest.remove();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * ImageInputStream that reads an image already in memory, such as a
+ * source file mapped with FileChannel.map or read into a byte array. The
+ * decoders read straight from the buffer: unlike the streams that ImageIO
+ * creates for an InputStream, nothing is copied to a cache in memory or on
+ * disk, and seeking back to the header is free.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ByteBufferImageInputStream extends ImageInputStreamImpl {
+    private ByteBuffer buffer;
+
+    /**
+     * Initialize a stream over the remaining bytes of a buffer. The
+     * position of the buffer is not changed.
+     * @param buffer Contents of the image file.
+     */
+    public ByteBufferImageInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+        bitOffset = 0;
+
+        if(streamPos >= buffer.limit())
+            return -1;
+
+        return buffer.get((int) streamPos++) & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        checkClosed();
+        bitOffset = 0;
+
+        if(length == 0)
+            return 0;
+
+        int available = (int) Math.max(0, buffer.limit() - streamPos);
+        if(available == 0)
+            return -1;
+
+        int read = Math.min(length, available);
+        buffer.get((int) streamPos, bytes, offset, read);
+        streamPos += read;
+        return read;
+    }
+
+    @Override
+    public long length() {
+        return buffer.limit();
+    }
+
+    @Override
+    public boolean isCached() {
+        return true;
+    }
+
+    @Override
+    public boolean isCachedMemory() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        buffer = null;
+    }
+}
@@ -0,0 +1,99 @@
+package imagescalerfx.utils;
+
+import java.util.List;
+
+/**
+ * Report of the work saved in a batch by scaling its byte-identical images
+ * only once (see SourceDeduplicator): the decodes avoided, the bytes of
+ * the sources that were not decoded, and the bytes of the scaled instances
+ * that were linked or copied instead of being encoded again.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class DeduplicationReport {
+    private int duplicates;
+    private long sourceBytes;
+    private long linkedBytes;
+    private long copiedBytes;
+
+    /**
+     * Initialize an empty report, to add the images as they finish.
+     */
+    public DeduplicationReport() {
+    }
+
+    /**
+     * Creates the report of the images finished so far.
+     * @param scalers Threads that scaled the images.
+     * @return Report of the batch.
+     */
+    public static DeduplicationReport of(List<ThreadScaler> scalers) {
+        DeduplicationReport report = new DeduplicationReport();
+
+        synchronized (scalers) {
+            for(ThreadScaler scaler : scalers)
+                report.add(scaler);
+        }
+
+        return report;
+    }
+
+    /**
+     * Adds a finished image to the report, if it was a copy of another one.
+     * @param scaler Thread that scaled the image.
+     */
+    public synchronized void add(ThreadScaler scaler) {
+        if(!scaler.isFinished() || !scaler.isDeduplicated())
+            return;
+
+        duplicates++;
+        sourceBytes += scaler.getSourceBytesSaved();
+        linkedBytes += scaler.getLinkedBytes();
+        copiedBytes += scaler.getCopiedBytes();
+    }
+
+    /**
+     * Returns the number of images that were copies of another one, which
+     * is also the number of decodes saved.
+     * @return Number of duplicates.
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Returns the bytes of the duplicates that were not decoded.
+     * @return Source bytes saved.
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    /**
+     * Returns the bytes of the scaled instances shared by hard links,
+     * which take no space on disk.
+     * @return Bytes linked.
+     */
+    public long getLinkedBytes() {
+        return linkedBytes;
+    }
+
+    /**
+     * Returns the bytes of the scaled instances copied because the file
+     * system does not support hard links.
+     * @return Bytes copied.
+     */
+    public long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * Returns the bytes saved: the sources not decoded and the scaled
+     * instances not encoded again.
+     * @return Bytes saved.
+     */
+    public long getBytesSaved() {
+        return sourceBytes + linkedBytes + copiedBytes;
+    }
+}
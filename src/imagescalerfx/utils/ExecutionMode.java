@@ -0,0 +1,74 @@
+package imagescalerfx.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Ways of running the scaling threads.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum ExecutionMode {
+    /**
+     * One task per image on a fixed thread pool. The levels of an image
+     * are scaled one after another.
+     */
+    FIXED_POOL("Fixed pool"),
+    /**
+     * Work-stealing pool where each image is split into per-level tasks,
+     * and large levels into row bands, so idle workers help with big images.
+     */
+    WORK_STEALING("Work stealing"),
+    /**
+     * Staged pipeline where reading, decoding, resampling, encoding and
+     * writing run on separate pools connected by bounded queues
+     * (see ScalePipeline).
+     */
+    PIPELINE("Pipeline"),
+    /**
+     * Pipeline whose read and write stages (with the directory operations)
+     * run on virtual threads (see IOExecutors), so many slow reads and
+     * writes wait at once, while decoding, resampling and encoding stay on
+     * pools sized to the processors.
+     */
+    VIRTUAL_IO("Virtual I/O threads");
+
+    private String description;
+
+    ExecutionMode(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Returns if the images are scaled in stages by a ScalePipeline.
+     * @return True for the pipeline modes.
+     */
+    public boolean isStaged() {
+        return this == PIPELINE || this == VIRTUAL_IO;
+    }
+
+    /**
+     * Creates the executor that runs the scaling threads in this mode.
+     * The pipeline modes create their own pools, one for each stage, so
+     * they get a fixed pool here.
+     * @param threads Number of worker threads.
+     * @return New executor.
+     */
+    public ExecutorService createExecutor(int threads) {
+        if(this == WORK_STEALING)
+            return new ForkJoinPool(threads);
+
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Return the mode description (for the choice boxes).
+     * @return Mode description.
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
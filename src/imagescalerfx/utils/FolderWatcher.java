@@ -0,0 +1,373 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task that watches a folder tree with a WatchService and puts in a bounded
+ * queue every compatible image that arrives or is modified, until it is
+ * stopped. Then it puts END_OF_IMAGES in the queue, like ImageDiscovery.
+ * The images already in the folder when it starts are put in the queue
+ * too.<br/>
+ * The files are debounced: an image is only put in the queue once its
+ * size and modification time have not changed for the debounce time, so
+ * files still being copied are not read half written.<br/>
+ * While the queue is full (the workers are behind), the settled files stay
+ * pending and the events are still taken from the watch service. When it
+ * loses events anyway (OVERFLOW), for instance after a burst of files, the
+ * whole tree is walked again and every image that is new or has changed
+ * since it was put in the queue is debounced again.<br/>
+ * An image modified while its previous version is still being scaled is
+ * held until that one finishes (see imageFinished), so two scalers never
+ * write the scaled instances of the same image at once.<br/>
+ * The arrival time of each image (when its first event was seen) is kept
+ * in its ImageData, to measure the latency until its levels are written.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class FolderWatcher implements Runnable {
+    private Path root;
+    private Path excludedFolder;
+    private boolean recursive;
+    private BlockingQueue<ImageData> queue;
+    private ProgressTracker progress;
+    private long debounceNanos;
+    private long pollMillis;
+    private WatchService watchService;
+    private Map<WatchKey, Path> watchedFolders;
+    private Map<Path, PendingFile> pendingFiles;
+    private Map<Path, FileVersion> queuedFiles;
+    private Set<Path> scalingFiles;
+    private volatile boolean stopped;
+    private volatile int rescans;
+    private volatile int overflows;
+
+    /**
+     * Initialize a watcher from the folder to watch and the queue to fill.
+     * @param root Folder with the images.
+     * @param excludedFolder Folder that is never watched (such as the
+     *                       output folder), or null.
+     * @param recursive True to watch the subfolders too.
+     * @param queue Queue where the images are put.
+     * @param progress Progress where the images found are published.
+     * @param debounceMillis Time a file must stay unchanged before it is
+     *                       put in the queue.
+     * @throws IOException If the watch service could not be created.
+     */
+    public FolderWatcher(Path root, Path excludedFolder, boolean recursive,
+                         BlockingQueue<ImageData> queue, ProgressTracker progress,
+                         long debounceMillis) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.excludedFolder = excludedFolder == null ?
+                null : excludedFolder.toAbsolutePath().normalize();
+        this.recursive = recursive;
+        this.queue = queue;
+        this.progress = progress;
+        debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+        pollMillis = Math.max(10, debounceMillis / 4);
+        watchService = this.root.getFileSystem().newWatchService();
+        watchedFolders = new HashMap<>();
+        pendingFiles = new LinkedHashMap<>();
+        queuedFiles = new HashMap<>();
+        scalingFiles = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Stops watching. The files still being debounced are not put in the
+     * queue.
+     */
+    public void stop() {
+        stopped = true;
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Publishes that an image put in the queue has been scaled (or
+     * skipped), so a newer version of it can be put in the queue.
+     * @param image Image taken from the queue.
+     */
+    public void imageFinished(ImageData image) {
+        scalingFiles.remove(image.getPath());
+    }
+
+    /**
+     * Returns if the watcher has been stopped.
+     * @return True if it has been stopped.
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Returns how many times the tree has been walked again because the
+     * watch service lost events.
+     * @return Number of rescans.
+     */
+    public int getRescans() {
+        return rescans;
+    }
+
+    /**
+     * Returns how many OVERFLOW events the watch service has sent.
+     * @return Number of overflows.
+     */
+    public int getOverflows() {
+        return overflows;
+    }
+
+    @Override
+    public void run() {
+        try {
+            scan(root);
+
+            while(!stopped) {
+                WatchKey key = watchService.poll(pollMillis, TimeUnit.MILLISECONDS);
+
+                if(key != null)
+                    processEvents(key);
+
+                queueSettledFiles();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // stopped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        progress.discoveryFinished();
+
+        try {
+            queue.put(ImageDiscovery.END_OF_IMAGES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void processEvents(WatchKey key) {
+        Path folder = watchedFolders.get(key);
+
+        for(WatchEvent<?> event : key.pollEvents()) {
+            if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflows++;
+                rescan();
+                continue;
+            }
+
+            if(folder == null)
+                continue;
+
+            Path file = folder.resolve((Path) event.context());
+
+            if(event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                pendingFiles.remove(file);
+                queuedFiles.remove(file);
+            }
+
+            // the files of a new folder may be created before it is watched
+            else if(Files.isDirectory(file)) {
+                if(recursive && event.kind() == StandardWatchEventKinds.ENTRY_CREATE)
+                    scan(file);
+            }
+
+            else if(IOUtils.isSupportedImage(file))
+                fileChanged(file);
+        }
+
+        if(!key.reset())
+            watchedFolders.remove(key);
+    }
+
+    private void rescan() {
+        rescans++;
+
+        // the deletions lost with the events are forgotten too, so only the
+        // files still in the folder are remembered
+        queuedFiles.keySet().removeIf(file -> !Files.isRegularFile(file));
+        scan(root);
+    }
+
+    private void scan(Path folder) {
+        try {
+            Files.walkFileTree(folder, EnumSet.noneOf(FileVisitOption.class),
+                               recursive ? Integer.MAX_VALUE : 1, new Visitor());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void fileChanged(Path file) {
+        FileVersion version = FileVersion.of(file);
+
+        if(version == null)
+            return;
+
+        PendingFile pending = pendingFiles.computeIfAbsent(file, f -> new PendingFile());
+        pending.version = version;
+        pending.lastChange = System.nanoTime();
+    }
+
+    private void queueSettledFiles() throws InterruptedException {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, PendingFile>> entries = pendingFiles.entrySet().iterator();
+
+        while(entries.hasNext() && !stopped) {
+            Map.Entry<Path, PendingFile> entry = entries.next();
+            PendingFile pending = entry.getValue();
+
+            if(now - pending.lastChange < debounceNanos)
+                continue;
+
+            FileVersion version = FileVersion.of(entry.getKey());
+            if(version == null) {
+                entries.remove();
+                continue;
+            }
+
+            // still being written
+            if(!version.equals(pending.version)) {
+                pending.version = version;
+                pending.lastChange = now;
+                continue;
+            }
+
+            // the previous version is still being scaled
+            if(scalingFiles.contains(entry.getKey()))
+                continue;
+
+            if(version.equals(queuedFiles.get(entry.getKey()))) {
+                entries.remove();
+                continue;
+            }
+
+            ImageData image = new ImageData(entry.getKey());
+            image.setDiscoveryIndex(progress.getDiscoveredImages());
+            image.setArrivalTime(pending.arrivalTime);
+
+            // while the queue is full the files stay pending, so the events
+            // are still drained and the watcher can be stopped
+            scalingFiles.add(entry.getKey());
+            if(!queue.offer(image, pollMillis, TimeUnit.MILLISECONDS)) {
+                scalingFiles.remove(entry.getKey());
+                return;
+            }
+
+            entries.remove();
+            queuedFiles.put(entry.getKey(), version);
+            progress.imageDiscovered();
+        }
+    }
+
+    private void watch(Path folder) throws IOException {
+        if(!watchedFolders.containsValue(folder))
+            watchedFolders.put(folder.register(watchService,
+                                               StandardWatchEventKinds.ENTRY_CREATE,
+                                               StandardWatchEventKinds.ENTRY_MODIFY,
+                                               StandardWatchEventKinds.ENTRY_DELETE),
+                               folder);
+    }
+
+    private class Visitor extends SimpleFileVisitor<Path> {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                throws IOException {
+            if(!dir.equals(root) &&
+                    ((excludedFolder != null && dir.startsWith(excludedFolder)) ||
+                     IOUtils.isOutputFolder(dir)))
+                return FileVisitResult.SKIP_SUBTREE;
+
+            watch(dir);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if(attrs.isRegularFile() && IOUtils.isSupportedImage(file) &&
+                    !Objects.equals(queuedFiles.get(file), FileVersion.of(file)))
+                fileChanged(file);
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            e.printStackTrace();
+            return FileVisitResult.CONTINUE;
+        }
+    }
+
+    /**
+     * File seen by the watcher and not put in the queue yet.
+     */
+    private static class PendingFile {
+        private long arrivalTime;
+        private long lastChange;
+        private FileVersion version;
+
+        PendingFile() {
+            arrivalTime = System.nanoTime();
+        }
+    }
+
+    /**
+     * Size and modification time of a file.
+     */
+    private static class FileVersion {
+        private long size;
+        private long lastModified;
+
+        FileVersion(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        static FileVersion of(Path file) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                return attrs.isRegularFile() ?
+                        new FileVersion(attrs.size(), attrs.lastModifiedTime().toMillis()) : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if(!(other instanceof FileVersion))
+                return false;
+
+            FileVersion version = (FileVersion) other;
+            return size == version.size && lastModified == version.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(size, lastModified);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package imagescalerfx.utils;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Class that listens to the garbage collections while a batch runs, to
+ * report how much memory was allocated and how long the application was
+ * paused. The allocated bytes are the heap growth between collections.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class GcMonitor implements NotificationListener {
+    private Set<String> heapPools;
+    private long startTime;
+    private long endTime;
+    private long lastHeapUsed;
+    private long allocatedBytes;
+    private int collections;
+    private long pauseMillis;
+    private long maxPauseMillis;
+
+    /**
+     * Starts listening to the collections.
+     */
+    public synchronized void start() {
+        startTime = System.nanoTime();
+        endTime = -1;
+        heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                                     .filter(pool -> pool.getType() == MemoryType.HEAP)
+                                     .map(MemoryPoolMXBean::getName)
+                                     .collect(Collectors.toSet());
+        lastHeapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            if(collector instanceof NotificationEmitter)
+                ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+    }
+
+    /**
+     * Stops listening to the collections.
+     */
+    public synchronized void stop() {
+        for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+            if(collector instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) collector).removeNotificationListener(this);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        allocatedBytes += Math.max(0, heapUsed - lastHeapUsed);
+        lastHeapUsed = heapUsed;
+        endTime = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void handleNotification(Notification notification, Object handback) {
+        if(!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+                .equals(notification.getType()))
+            return;
+
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                (CompositeData) notification.getUserData());
+        GcInfo gcInfo = info.getGcInfo();
+
+        long usedBefore = getHeapUsed(gcInfo.getMemoryUsageBeforeGc());
+        long usedAfter = getHeapUsed(gcInfo.getMemoryUsageAfterGc());
+        allocatedBytes += Math.max(0, usedBefore - lastHeapUsed);
+        lastHeapUsed = usedAfter;
+
+        // concurrent cycles run next to the application, they are not pauses
+        if(!info.getGcAction().contains("concurrent") &&
+                !info.getGcName().contains("Concurrent")) {
+            collections++;
+            pauseMillis += gcInfo.getDuration();
+            maxPauseMillis = Math.max(maxPauseMillis, gcInfo.getDuration());
+        }
+    }
+
+    /**
+     * Returns the bytes allocated while listening.
+     * @return Allocated bytes.
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * Returns the megabytes allocated per second while listening.
+     * @return Allocation rate.
+     */
+    public synchronized double getAllocationRate() {
+        double seconds = ((endTime >= 0 ? endTime : System.nanoTime()) - startTime) / 1e9;
+        return seconds > 0 ? allocatedBytes / 1e6 / seconds : 0;
+    }
+
+    /**
+     * Returns the number of collections that paused the application.
+     * @return Number of pauses.
+     */
+    public synchronized int getCollections() {
+        return collections;
+    }
+
+    /**
+     * Returns the total time the application was paused by the collector.
+     * @return Milliseconds of pauses.
+     */
+    public synchronized long getPauseMillis() {
+        return pauseMillis;
+    }
+
+    /**
+     * Returns the longest pause of the collector.
+     * @return Milliseconds of the longest pause.
+     */
+    public synchronized long getMaxPauseMillis() {
+        return maxPauseMillis;
+    }
+
+    private long getHeapUsed(Map<String, MemoryUsage> usage) {
+        return usage.entrySet().stream()
+                    .filter(pool -> heapPools.contains(pool.getKey()))
+                    .mapToLong(pool -> pool.getValue().getUsed())
+                    .sum();
+    }
+}
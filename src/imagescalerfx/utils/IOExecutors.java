@@ -0,0 +1,72 @@
+package imagescalerfx.utils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of the executors that run the file reads, writes and directory
+ * operations. When the Java runtime supports virtual threads (Java 21 or
+ * later) each task runs in a new virtual thread, so many slow operations
+ * can wait at once without holding a platform thread each. The application
+ * is compiled for older runtimes, so they are created by reflection, and
+ * on older runtimes the executor falls back to a cached pool of platform
+ * threads.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class IOExecutors {
+    private static final Method ofVirtual = findMethod(Thread.class, "ofVirtual");
+    private static final Method newThreadPerTaskExecutor =
+            findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+    private IOExecutors() {
+    }
+
+    /**
+     * Returns if the Java runtime supports virtual threads.
+     * @return True if the I/O executors run virtual threads.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return ofVirtual != null && newThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * Creates an executor that runs each task in a new virtual thread, or
+     * in a cached pool of platform threads if they are not supported.
+     * @param name Prefix of the names of the threads.
+     * @return New executor.
+     */
+    public static ExecutorService newExecutor(String name) {
+        if(isVirtualThreadsSupported()) {
+            try {
+                Object builder = ofVirtual.invoke(null);
+                builder = Class.forName("java.lang.Thread$Builder")
+                               .getMethod("name", String.class, long.class)
+                               .invoke(builder, name + "-", 1L);
+                ThreadFactory factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                                                             .getMethod("factory")
+                                                             .invoke(builder);
+
+                return (ExecutorService) newThreadPerTaskExecutor.invoke(null, factory);
+            } catch (ReflectiveOperationException e) {
+                e.printStackTrace();
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable ->
+                new Thread(runnable, name + "-" + threadNumber.incrementAndGet()));
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -1,16 +1,30 @@
 package imagescalerfx.utils;
 
+import java.awt.AlphaComposite;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 /**
  *  Class in charge of get the information from the images to be processed,
@@ -23,36 +37,296 @@ public class IOUtils
 {
     private  static final String[] supportedFormats = {"JPEG", "JPG", "PNG", "BMP", "WEBMP", "GIF"};
 
-    private static void resize(String inputImagePath,
-                               String outputImagePath, int scaledWidth, int scaledHeight){
-        // reads input image
-        File inputFile = new File(inputImagePath);
+    static {
+        // the images are always in memory or in a file, never worth a cache file
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Decodes the image passed by parameter.
+     * @param inputImagePath Image to decode.
+     * @return Decoded image, or null if it could not be read.
+     */
+    public static BufferedImage read(String inputImagePath) {
         BufferedImage inputImage = null;
         try {
-            inputImage = ImageIO.read(inputFile);
+            inputImage = ImageIO.read(new File(inputImagePath));
         } catch (IOException e) {
             e.printStackTrace();
         }
 
+        return inputImage;
+    }
+
+    /**
+     * Decodes the image passed by parameter keeping only one of every
+     * subsampling pixels in each dimension.
+     * @param inputImagePath Image to decode.
+     * @param subsampling Source pixels per decoded pixel (1 decodes everything).
+     * @return Decoded image, or null if it could not be read.
+     */
+    public static BufferedImage read(String inputImagePath, int subsampling) {
+        if(subsampling <= 1)
+            return read(inputImagePath);
+
+        return decode(new File(inputImagePath), subsampling);
+    }
+
+    /**
+     * Decodes an image already read in memory, keeping only one of every
+     * subsampling pixels in each dimension.
+     * @param bytes Contents of the image file.
+     * @param subsampling Source pixels per decoded pixel (1 decodes everything).
+     * @return Decoded image, or null if it could not be decoded.
+     */
+    public static BufferedImage decode(byte[] bytes, int subsampling) {
+        return decode(ByteBuffer.wrap(bytes), subsampling);
+    }
+
+    /**
+     * Decodes an image already in memory, such as a mapped file, keeping
+     * only one of every subsampling pixels in each dimension. The decoder
+     * reads straight from the buffer (see ByteBufferImageInputStream).
+     * @param buffer Contents of the image file.
+     * @param subsampling Source pixels per decoded pixel (1 decodes everything).
+     * @return Decoded image, or null if it could not be decoded.
+     */
+    public static BufferedImage decode(ByteBuffer buffer, int subsampling) {
+        return decode((Object) buffer, subsampling);
+    }
+
+    /**
+     * Reads the dimensions of an image from its header, without decoding it.
+     * @param inputImagePath Image to inspect.
+     * @return Width and height of the image, or null if it could not be read.
+     */
+    public static Dimension readDimensions(String inputImagePath) {
+        return readDimensions(new File(inputImagePath));
+    }
+
+    /**
+     * Reads the dimensions of an image already read in memory from its
+     * header, without decoding it.
+     * @param bytes Contents of the image file.
+     * @return Width and height of the image, or null if it could not be read.
+     */
+    public static Dimension readDimensions(byte[] bytes) {
+        return readDimensions(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads the dimensions of an image already in memory, such as a mapped
+     * file, from its header, without decoding it.
+     * @param buffer Contents of the image file.
+     * @return Width and height of the image, or null if it could not be read.
+     */
+    public static Dimension readDimensions(ByteBuffer buffer) {
+        return readDimensions((Object) buffer);
+    }
+
+    /**
+     * Scales an image already decoded to the given size. When it is called
+     * from a fork/join pool, large images are scaled in parallel row bands.
+     * @param inputImage Image to scale.
+     * @param scaledWidth Width of the resulting image.
+     * @param scaledHeight Height of the resulting image.
+     * @return Scaled image.
+     */
+    public static BufferedImage scale(BufferedImage inputImage,
+                                      int scaledWidth, int scaledHeight) {
         // creates output image
-        BufferedImage outputImage = new BufferedImage(scaledWidth,
-                scaledHeight, inputImage.getType());
+        int type = inputImage.getType() == BufferedImage.TYPE_CUSTOM ?
+                BufferedImage.TYPE_INT_ARGB : inputImage.getType();
+        BufferedImage outputImage =
+                RasterPool.getShared().createImage(scaledWidth, scaledHeight, type);
 
         // scales the input image to the output image
-        Graphics2D g2d = outputImage.createGraphics();
-        g2d.drawImage(inputImage, 0, 0, scaledWidth, scaledHeight, null);
-        g2d.dispose();
+        if(ForkJoinTask.inForkJoinPool())
+            new BandScaleTask(inputImage, outputImage, 0, scaledHeight).invoke();
+
+        else {
+            // the pooled pixels are replaced, not blended
+            Graphics2D g2d = outputImage.createGraphics();
+            g2d.setComposite(AlphaComposite.Src);
+            g2d.drawImage(inputImage, 0, 0, scaledWidth, scaledHeight, null);
+            g2d.dispose();
+        }
+
+        return outputImage;
+    }
+
+    /**
+     * Scales an image already decoded to the given size with the engine
+     * chosen in the settings.
+     * @param inputImage Image to scale.
+     * @param scaledWidth Width of the resulting image.
+     * @param scaledHeight Height of the resulting image.
+     * @param settings Options used to scale the image.
+     * @return Scaled image.
+     */
+    public static BufferedImage scale(BufferedImage inputImage, int scaledWidth,
+                                      int scaledHeight, ScaleSettings settings) {
+        if(settings.getScalingEngine() == ScalingEngine.RESAMPLER)
+            return Resampler.resample(inputImage, scaledWidth, scaledHeight,
+                                      settings.getResampleFilter());
+
+        return scale(inputImage, scaledWidth, scaledHeight);
+    }
+
+    /**
+     * Encodes an image to the given file, using the format of its extension.
+     * @param outputImage Image to encode.
+     * @param outputImagePath Resulting file.
+     */
+    public static void write(BufferedImage outputImage, String outputImagePath) {
+        write(outputImage, outputImagePath, new ScaleSettings());
+    }
+
+    /**
+     * Encodes an image to the given file, using the format of its extension
+     * and the quality of the settings. The file is replaced atomically.
+     * @param outputImage Image to encode.
+     * @param outputImagePath Resulting file.
+     * @param settings Options with the quality of each format.
+     */
+    public static void write(BufferedImage outputImage, String outputImagePath,
+                             ScaleSettings settings) {
+        byte[] bytes = encode(outputImage, outputImagePath, settings);
+
+        if(bytes != null)
+            writeBytes(bytes, outputImagePath);
+    }
+
+    /**
+     * Encodes an image in memory, with the format of the given file.
+     * @param outputImage Image to encode.
+     * @param outputImagePath File whose extension gives the format.
+     * @return Contents of the encoded file, or null if it could not be encoded.
+     */
+    public static byte[] encode(BufferedImage outputImage, String outputImagePath) {
+        return encode(outputImage, outputImagePath, new ScaleSettings());
+    }
 
-        // extracts extension of output file
-        String formatName = outputImagePath.substring(outputImagePath
-                .lastIndexOf(".") + 1);
+    /**
+     * Encodes an image in memory, with the format of the given file and the
+     * quality of the settings (see ImageEncoder).
+     * @param outputImage Image to encode.
+     * @param outputImagePath File whose extension gives the format.
+     * @param settings Options with the quality of each format.
+     * @return Contents of the encoded file, or null if it could not be encoded.
+     */
+    public static byte[] encode(BufferedImage outputImage, String outputImagePath,
+                                ScaleSettings settings) {
+        return ImageEncoder.encode(outputImage, getFormatName(outputImagePath), settings);
+    }
 
-        // writes to output file
+    /**
+     * Reads all the bytes of a file.
+     * @param path File to read.
+     * @return Contents of the file, or null if it could not be read.
+     */
+    public static byte[] readBytes(Path path) {
         try {
-            ImageIO.write(outputImage, formatName, new File(outputImagePath));
+            return Files.readAllBytes(path);
         } catch (IOException e) {
             e.printStackTrace();
         }
+
+        return null;
+    }
+
+    /**
+     * Maps a file in memory, read-only. The pages are read from the disk
+     * when they are first accessed (or by MappedByteBuffer.load), straight
+     * from the page cache of the system, without a copy in the heap.
+     * @param path File to map.
+     * @return Contents of the file, or null if it could not be mapped.
+     */
+    public static MappedByteBuffer map(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * Writes the given bytes to a file, replacing it if it exists. They are
+     * written to a temporary file next to it that is then moved into place,
+     * atomically if the file system supports it, so the file is never seen
+     * half written.
+     * @param bytes Contents of the file.
+     * @param outputPath Resulting file.
+     */
+    public static void writeBytes(byte[] bytes, String outputPath) {
+        Path path = Path.of(outputPath).toAbsolutePath();
+        Path temporaryPath = getTemporaryPath(path);
+
+        try {
+            Files.write(temporaryPath, bytes);
+            move(temporaryPath, path);
+        } catch (IOException e) {
+            e.printStackTrace();
+
+            try {
+                Files.deleteIfExists(temporaryPath);
+            } catch (IOException deleteException) {
+                deleteException.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns the temporary file where a file is written before it is moved
+     * into place. It is unique for the current process and thread, since a
+     * thread only writes one file at a time and several processes may
+     * write the same folder (see ShardWorker); createTempFile would give
+     * the file owner-only permissions.
+     * @param path Resulting file.
+     * @return Hidden temporary file next to it.
+     */
+    public static Path getTemporaryPath(Path path) {
+        return path.resolveSibling("." + path.getFileName() + "." + ProcessHandle.current().pid()
+                                   + "-" + Thread.currentThread().getId() + ".tmp");
+    }
+
+    /**
+     * Moves a file into place, replacing the target if it exists. The move
+     * is atomic if the file system supports it.
+     * @param source File to move.
+     * @param target Resulting file.
+     * @throws IOException If the file could not be moved.
+     */
+    public static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Creates a hard link to a file, replacing the link if it exists. If
+     * the file system does not support hard links (or the file is in
+     * another one), the file is copied instead.
+     * @param target Existing file.
+     * @param link Resulting file.
+     * @return True if a hard link was created, false if the file was copied.
+     * @throws IOException If the file could not be linked nor copied.
+     */
+    public static boolean linkOrCopy(Path target, Path link) throws IOException {
+        Files.deleteIfExists(link);
+
+        try {
+            Files.createLink(link, target);
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(target, link, StandardCopyOption.REPLACE_EXISTING);
+            return false;
+        }
     }
 
     /**
@@ -63,16 +337,49 @@ public class IOUtils
      */
     public static void resize(String inputImagePath,
                               String outputImagePath, double percent) {
-        File inputFile = new File(inputImagePath);
-        BufferedImage inputImage = null;
-        try {
-            inputImage = ImageIO.read(inputFile);
-        } catch (IOException e) {
-            e.printStackTrace();
+        resize(inputImagePath, outputImagePath, percent, new ScaleSettings());
+    }
+
+    /**
+     * It scale an input image to a given percentage, with the given options.
+     * Small percentages are decoded with subsampling when it is enabled.
+     * @param inputImagePath Image to scale.
+     * @param outputImagePath Resulting image, already scaled.
+     * @param percent Scaling percentage.
+     * @param settings Options used to scale the image.
+     */
+    public static void resize(String inputImagePath, String outputImagePath,
+                              double percent, ScaleSettings settings) {
+        ImagePyramid pyramid = ImagePyramid.read(inputImagePath, percent, settings);
+
+        if(pyramid != null)
+            write(pyramid.getLevel(percent), outputImagePath, settings);
+    }
+
+    /**
+     * Calculates a fast hash (CRC-32C) of the contents of a file. The file
+     * is mapped, so the pages read are the same that the decoder maps
+     * afterwards.
+     * @param path File to hash.
+     * @return Hash of the file, in hexadecimal.
+     * @throws IOException If the file could not be read.
+     */
+    public static String hash(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return hash(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
         }
-        int scaledWidth = (int) (inputImage.getWidth() * percent);
-        int scaledHeight = (int) (inputImage.getHeight() * percent);
-        resize(inputImagePath, outputImagePath, scaledWidth, scaledHeight);
+    }
+
+    /**
+     * Calculates a fast hash (CRC-32C) of the contents of a file already in
+     * memory. The position of the buffer is not changed.
+     * @param buffer Contents of the file.
+     * @return Hash of the file, in hexadecimal.
+     */
+    public static String hash(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate());
+        return Long.toHexString(crc.getValue());
     }
 
     /**
@@ -113,6 +420,21 @@ public class IOUtils
         }
     }
 
+    /**
+     * Create a new directory, and the parent directories that do not exist,
+     * if the directory passed by reference does not exist.
+     * @param path Directory to be created.
+     */
+    public static void createDirectories(Path path) {
+        if(! Files.exists(path)) {
+            try {
+                Files.createDirectories(path);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Obtains the images compatible with the scaler that are direct children of the folder passed by parameter
      * @param folderPath Directory from which you want to extract the images.
@@ -125,22 +447,121 @@ public class IOUtils
         return Arrays.asList(
                     new File(String.valueOf(folderPath)).list())
                             .stream()
-                            .map(p -> new ImageData(Path.of(folderPath + "\\" + p)))
-                            .filter(i -> isSupportedImage(i))
+                            .map(p -> new ImageData(folderPath.resolve(p)))
+                            .filter(i -> isSupportedImage(i.getPath()))
                             .collect(Collectors.toList());
     }
 
-    private static boolean isSupportedImage(ImageData imageData) {
-        if(!Files.isDirectory(imageData.getPath()))
+    /**
+     * Returns if there is any compatible image in the folder passed by
+     * parameter or its subfolders. It stops walking at the first one.
+     * @param folderPath Directory where the images are searched.
+     * @return True if the folder contains at least one image.
+     */
+    public static boolean containsImages(Path folderPath) {
+        try (Stream<Path> paths = Files.walk(folderPath)) {
+            return paths.anyMatch(IOUtils::isSupportedImage);
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns if the file passed by parameter is an image compatible with
+     * the scaler, by its extension.
+     * @param path File to check.
+     * @return True if it is a compatible image.
+     */
+    public static boolean isSupportedImage(Path path) {
+        if(!Files.isDirectory(path))
         {
+            String fileName = path.getFileName().toString();
             String extension =
-                    imageData.getFileName()
-                             .substring(imageData.getFileName().lastIndexOf(".") + 1)
-                             .toUpperCase();
+                    fileName.substring(fileName.lastIndexOf(".") + 1)
+                            .toUpperCase();
             if(Arrays.asList(supportedFormats).contains(extension))
                 return true;
         }
 
         return false;
     }
+
+    /**
+     * Returns if the folder passed by parameter stores the scaled instances
+     * of an image, that is, if there is an image with the same name next to it.
+     * @param folderPath Directory to check.
+     * @return True if it is the folder of the scaled instances of an image.
+     */
+    public static boolean isOutputFolder(Path folderPath) {
+        Path parent = folderPath.getParent();
+
+        if(parent == null)
+            return false;
+
+        String name = folderPath.getFileName().toString();
+        for(String format : supportedFormats)
+            if(Files.exists(parent.resolve(name + "." + format.toLowerCase())) ||
+                    Files.exists(parent.resolve(name + "." + format)))
+                return true;
+
+        return false;
+    }
+
+    private static String getFormatName(String imagePath) {
+        return imagePath.substring(imagePath.lastIndexOf(".") + 1);
+    }
+
+    private static ImageInputStream createInputStream(Object source) throws IOException {
+        if(source instanceof ByteBuffer)
+            return new ByteBufferImageInputStream((ByteBuffer) source);
+
+        return ImageIO.createImageInputStream(source);
+    }
+
+    private static BufferedImage decode(Object source, int subsampling) {
+        try (ImageInputStream input = createInputStream(source)) {
+            Iterator<ImageReader> readers = input == null ?
+                    Collections.emptyIterator() : ImageIO.getImageReaders(input);
+
+            if(readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    if(subsampling > 1)
+                        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    return reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    private static Dimension readDimensions(Object source) {
+        try (ImageInputStream input = createInputStream(source)) {
+            Iterator<ImageReader> readers = input == null ?
+                    Collections.emptyIterator() : ImageIO.getImageReaders(input);
+
+            if(readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    return new Dimension(reader.getWidth(0), reader.getHeight(0));
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
 }
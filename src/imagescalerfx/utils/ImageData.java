@@ -11,10 +11,15 @@ import java.nio.file.Path;
 public class ImageData {
     private String fileName;
     private Path path;
+    private int discoveryIndex;
+    private long estimatedCost;
+    private long arrivalTime;
 
     private ImageData(String fileName, Path path) {
         this.fileName = fileName;
         this.path = path;
+        estimatedCost = -1;
+        arrivalTime = -1;
     }
 
     /**
@@ -23,7 +28,7 @@ public class ImageData {
      * @param path Path object containing the full path to the image.
      */
     public ImageData(Path path) {
-        this(path.toString().substring(path.toString().lastIndexOf("\\") + 1),
+        this(path.getFileName() == null ? path.toString() : path.getFileName().toString(),
              path);
     }
 
@@ -44,6 +49,56 @@ public class ImageData {
         return path;
     }
 
+    /**
+     * Returns the position in which the image was found, from 0.
+     * @return Order of discovery.
+     */
+    public int getDiscoveryIndex() {
+        return discoveryIndex;
+    }
+
+    /**
+     * Set the position in which the image was found, from 0.
+     * @param discoveryIndex Order of discovery.
+     */
+    public void setDiscoveryIndex(int discoveryIndex) {
+        this.discoveryIndex = discoveryIndex;
+    }
+
+    /**
+     * Returns the estimated cost of scaling the image (see
+     * JobOrder.estimateCost).
+     * @return Estimated cost, or -1 if it has not been estimated.
+     */
+    public long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    /**
+     * Set the estimated cost of scaling the image.
+     * @param estimatedCost Estimated cost, or -1 if it is unknown.
+     */
+    public void setEstimatedCost(long estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
+
+    /**
+     * Returns when a FolderWatcher saw the image arrive.
+     * @return System.nanoTime of the arrival, or -1 if the image was not
+     *         watched.
+     */
+    public long getArrivalTime() {
+        return arrivalTime;
+    }
+
+    /**
+     * Set when the image arrived to a watched folder.
+     * @param arrivalTime System.nanoTime of the arrival.
+     */
+    public void setArrivalTime(long arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+
     /**
      * Return image name (for the list views).
      * @return image name.
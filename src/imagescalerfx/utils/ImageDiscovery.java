@@ -0,0 +1,208 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.awt.Dimension;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Task that walks a folder tree lazily and puts every compatible image in a
+ * bounded queue, waiting while the queue is full, so the scaling can start
+ * with the first image found and memory does not grow with the number of
+ * files. When the walk finishes it puts END_OF_IMAGES in the queue.<br/>
+ * The folders with the scaled instances of an image, and the output folder,
+ * are not walked.<br/>
+ * In LARGEST_FIRST order the images are kept until the walk finishes, and
+ * then put in the queue from the largest estimated cost to the smallest,
+ * read from their headers.<br/>
+ * The walk can be replaced by a given list of files (such as a shard of a
+ * ShardCoordinator), which are put in the queue in the same way.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ImageDiscovery implements Runnable {
+    /**
+     * Mark put in the queue after the last image.
+     */
+    public static final ImageData END_OF_IMAGES = new ImageData(Path.of("."));
+
+    private Path root;
+    private Path excludedFolder;
+    private boolean recursive;
+    private BlockingQueue<ImageData> queue;
+    private ProgressTracker progress;
+    private JobOrder order;
+    private List<LevelSpec> levels;
+    private List<ImageData> pendingImages;
+    private List<Path> files;
+    private volatile boolean stopped;
+
+    /**
+     * Initialize a discovery from the folder to walk and the queue to fill.
+     * @param root Folder with the images.
+     * @param excludedFolder Folder that is never walked (such as the output
+     *                       folder), or null.
+     * @param recursive True to walk the subfolders too.
+     * @param queue Queue where the images are put.
+     * @param progress Progress where the images found are published.
+     */
+    public ImageDiscovery(Path root, Path excludedFolder, boolean recursive,
+                          BlockingQueue<ImageData> queue, ProgressTracker progress) {
+        this.root = root.toAbsolutePath().normalize();
+        this.excludedFolder = excludedFolder == null ?
+                null : excludedFolder.toAbsolutePath().normalize();
+        this.recursive = recursive;
+        this.queue = queue;
+        this.progress = progress;
+        order = JobOrder.DISCOVERY;
+        pendingImages = new ArrayList<>();
+    }
+
+    /**
+     * Set the order in which the images are put in the queue (by default,
+     * the discovery order).
+     * @param order Order of the images.
+     * @param levels Level specs, to estimate the cost of each image.
+     */
+    public void setOrder(JobOrder order, List<LevelSpec> levels) {
+        this.order = order;
+        this.levels = levels;
+    }
+
+    /**
+     * Set the files to put in the queue instead of walking the root folder.
+     * The root folder is still used to locate the output of each image.
+     * @param files Image files, or null to walk the root folder.
+     */
+    public void setFiles(List<Path> files) {
+        this.files = files == null ? null : new ArrayList<>(files);
+    }
+
+    /**
+     * Stops putting images in the queue. END_OF_IMAGES is still put, so
+     * the consumers finish.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Returns the number of images put in the queue so far.
+     * @return Number of images discovered.
+     */
+    public int getDiscoveredImages() {
+        return progress.getDiscoveredImages();
+    }
+
+    /**
+     * Returns if the whole tree has been walked.
+     * @return True if the discovery has finished.
+     */
+    public boolean isFinished() {
+        return progress.isDiscoveryFinished();
+    }
+
+    @Override
+    public void run() {
+        try {
+            if(files != null) {
+                for(Path file : files)
+                    imageFound(file);
+            }
+
+            else
+                Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class),
+                                   recursive ? Integer.MAX_VALUE : 1, new Visitor());
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        progress.discoveryFinished();
+
+        try {
+            if(order == JobOrder.LARGEST_FIRST && !stopped) {
+                pendingImages.forEach(this::estimateCost);
+                pendingImages.sort(Comparator.comparingLong(ImageData::getEstimatedCost)
+                                             .reversed());
+
+                for(ImageData image : pendingImages)
+                    queue.put(image);
+                pendingImages.clear();
+            }
+
+            queue.put(END_OF_IMAGES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void imageFound(Path file) throws InterruptedException {
+        if(stopped)
+            return;
+
+        ImageData image = new ImageData(file);
+        image.setDiscoveryIndex(progress.getDiscoveredImages());
+
+        if(order == JobOrder.LARGEST_FIRST)
+            pendingImages.add(image);
+        else
+            queue.put(image);
+        progress.imageDiscovered();
+    }
+
+    private void estimateCost(ImageData image) {
+        Dimension size = IOUtils.readDimensions(image.getPath().toString());
+
+        if(size != null)
+            image.setEstimatedCost(JobOrder.estimateCost(size.width, size.height, levels));
+    }
+
+    private class Visitor extends SimpleFileVisitor<Path> {
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if(stopped)
+                return FileVisitResult.TERMINATE;
+
+            if(dir.equals(root))
+                return FileVisitResult.CONTINUE;
+
+            if((excludedFolder != null && dir.startsWith(excludedFolder)) ||
+                    IOUtils.isOutputFolder(dir))
+                return FileVisitResult.SKIP_SUBTREE;
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if(attrs.isRegularFile() && IOUtils.isSupportedImage(file)) {
+                try {
+                    imageFound(file);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return FileVisitResult.TERMINATE;
+                }
+            }
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            e.printStackTrace();
+            return FileVisitResult.CONTINUE;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package imagescalerfx.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Class in charge of encoding the scaled images with the quality options
+ * of the settings: JPEG quality, progressive JPEG and PNG compression
+ * level.<br/>
+ * ImageIO.write looks up a new writer for every image. Here each thread
+ * keeps one writer of each format and reuses it, since writers cannot be
+ * shared between threads. Images are always encoded in memory, without
+ * the disk cache of ImageIO.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ImageEncoder {
+    private static final ThreadLocal<Map<String, ImageWriter>> writers =
+            ThreadLocal.withInitial(HashMap::new);
+
+    private ImageEncoder() {
+    }
+
+    /**
+     * Encodes an image in memory.
+     * @param image Image to encode.
+     * @param formatName Format of the image, e.g. "jpg" or "png".
+     * @param settings Options with the quality of each format.
+     * @return Contents of the encoded file, or null if the format is not
+     *         supported or cannot store this kind of image (such as JPEG
+     *         with alpha).
+     */
+    public static byte[] encode(BufferedImage image, String formatName, ScaleSettings settings) {
+        ImageWriter writer = getWriter(formatName);
+
+        if(writer == null || !writer.getOriginatingProvider().canEncodeImage(image))
+            return null;
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(output)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null),
+                         createParam(writer, formatName, settings));
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+
+            // the writer may be left in any state, it is not reused
+            writers.get().remove(formatName.toLowerCase());
+            writer.dispose();
+            return null;
+        } finally {
+            writer.reset();
+        }
+
+        return output.toByteArray();
+    }
+
+    private static ImageWriter getWriter(String formatName) {
+        return writers.get().computeIfAbsent(formatName.toLowerCase(), format -> {
+            Iterator<ImageWriter> formatWriters = ImageIO.getImageWritersByFormatName(format);
+            return formatWriters.hasNext() ? formatWriters.next() : null;
+        });
+    }
+
+    private static ImageWriteParam createParam(ImageWriter writer, String formatName,
+                                               ScaleSettings settings) {
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        String format = formatName.toLowerCase();
+
+        if(format.equals("jpg") || format.equals("jpeg")) {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(settings.getJpegQuality());
+            param.setProgressiveMode(settings.isProgressive() ?
+                    ImageWriteParam.MODE_DEFAULT : ImageWriteParam.MODE_DISABLED);
+        }
+
+        else if(format.equals("png") && settings.getPngCompressionLevel() >= 0) {
+            // the writer uses the deflate level 9 * (1 - quality), truncated
+            float quality = 1 - (settings.getPngCompressionLevel() + 0.5f) / 9;
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(Math.max(0, quality));
+        }
+
+        return param;
+    }
+}
@@ -0,0 +1,246 @@
+package imagescalerfx.utils;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Class that keeps an image decoded in memory and produces every scaled
+ * level from it, so the source file is only decoded once. Each level is
+ * resampled from its parent in the LevelPlan, and the levels that are
+ * parents of others are kept until the pyramid is released. A level of the
+ * size of the decoded image is the decoded image itself.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ImagePyramid {
+    private BufferedImage source;
+    private int width;
+    private int height;
+    private ScaleSettings settings;
+    private Map<LevelPlan.Level, FutureTask<BufferedImage>> parentLevels;
+    private Set<BufferedImage> keptImages;
+
+    /**
+     * Initialize a pyramid from an already decoded image. If the settings use
+     * the Resampler, the image is converted to an int raster only once here.
+     * @param source Decoded original image.
+     * @param settings Options used to build the levels.
+     */
+    public ImagePyramid(BufferedImage source, ScaleSettings settings) {
+        this(source, source.getWidth(), source.getHeight(), settings);
+    }
+
+    /**
+     * Initialize a pyramid from an image decoded with subsampling, so it is
+     * smaller than the original one.
+     * @param source Decoded image.
+     * @param width Width of the original image.
+     * @param height Height of the original image.
+     * @param settings Options used to build the levels.
+     */
+    public ImagePyramid(BufferedImage source, int width, int height, ScaleSettings settings) {
+        this.source = settings.getScalingEngine() == ScalingEngine.RESAMPLER ?
+                Resampler.toIntRaster(source) : source;
+        this.width = width;
+        this.height = height;
+        this.settings = settings;
+        parentLevels = new ConcurrentHashMap<>();
+        keptImages = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Decodes the image passed by parameter and creates its pyramid.
+     * @param inputImagePath Image to decode.
+     * @param settings Options used to build the levels.
+     * @return Pyramid of the image, or null if it could not be decoded.
+     */
+    public static ImagePyramid read(String inputImagePath, ScaleSettings settings) {
+        return read(inputImagePath, 1.0, settings);
+    }
+
+    /**
+     * Decodes the image passed by parameter and creates its pyramid. If the
+     * largest level needed is small enough, the decoder skips source pixels
+     * (see SubsamplingPolicy) and the levels are resampled from the smaller
+     * decoded image.
+     * @param inputImagePath Image to decode.
+     * @param largestPercent Largest scaling percentage that will be requested.
+     * @param settings Options used to build the levels.
+     * @return Pyramid of the image, or null if it could not be decoded.
+     */
+    public static ImagePyramid read(String inputImagePath, double largestPercent,
+                                    ScaleSettings settings) {
+        int factor = getSubsampling(largestPercent, settings);
+        Dimension size = factor > 1 ? IOUtils.readDimensions(inputImagePath) : null;
+
+        if(size == null)
+            return create(IOUtils.read(inputImagePath), null, settings);
+
+        return create(IOUtils.read(inputImagePath, factor), size, settings);
+    }
+
+    /**
+     * Decodes an image already read in memory and creates its pyramid,
+     * skipping source pixels like read does.
+     * @param bytes Contents of the image file.
+     * @param largestPercent Largest scaling percentage that will be requested.
+     * @param settings Options used to build the levels.
+     * @return Pyramid of the image, or null if it could not be decoded.
+     */
+    public static ImagePyramid decode(byte[] bytes, double largestPercent,
+                                      ScaleSettings settings) {
+        return decode(ByteBuffer.wrap(bytes), largestPercent, settings);
+    }
+
+    /**
+     * Decodes an image already in memory, such as a mapped file, and
+     * creates its pyramid, skipping source pixels like read does.
+     * @param buffer Contents of the image file.
+     * @param largestPercent Largest scaling percentage that will be requested.
+     * @param settings Options used to build the levels.
+     * @return Pyramid of the image, or null if it could not be decoded.
+     */
+    public static ImagePyramid decode(ByteBuffer buffer, double largestPercent,
+                                      ScaleSettings settings) {
+        int factor = getSubsampling(largestPercent, settings);
+        Dimension size = factor > 1 ? IOUtils.readDimensions(buffer) : null;
+
+        return create(IOUtils.decode(buffer, size == null ? 1 : factor), size, settings);
+    }
+
+    /**
+     * Returns the width of the original image.
+     * @return Width of the original image.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the original image.
+     * @return Height of the original image.
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns a level of the plan of the image, resampled from its parent
+     * (which is produced first if it has not been yet) or from the original
+     * image. The levels with children are produced only once and kept.<br/>
+     * It can be called from several threads at once.
+     * @param level Level of the plan of this image.
+     * @return Scaled image.
+     */
+    public BufferedImage getLevel(LevelPlan.Level level) {
+        if(!level.hasChildren())
+            return resample(level);
+
+        FutureTask<BufferedImage> task = new FutureTask<>(() -> resample(level));
+        FutureTask<BufferedImage> producedTask = parentLevels.putIfAbsent(level, task);
+
+        // the first thread that needs the level produces it, the rest wait
+        if(producedTask == null) {
+            task.run();
+            producedTask = task;
+        }
+
+        try {
+            return producedTask.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The level " + level.getName()
+                                            + " could not be resampled", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the level "
+                                            + level.getName(), e);
+        }
+    }
+
+    /**
+     * Returns the original image scaled to a given percentage, resampled
+     * from the original image.
+     * @param percent Scaling percentage (0.5 is the half of the original).
+     * @return Scaled image.
+     */
+    public BufferedImage getLevel(double percent) {
+        return resample(source, (int) (getWidth() * percent), (int) (getHeight() * percent));
+    }
+
+    /**
+     * Gives back to the raster pool a level returned by getLevel, once it
+     * has been encoded. Levels kept to derive smaller ones are only given
+     * back by release().
+     * @param level Level that is no longer used.
+     */
+    public void release(BufferedImage level) {
+        if(level != source && !keptImages.contains(level))
+            RasterPool.getShared().release(level);
+    }
+
+    /**
+     * Gives back to the raster pool the source and every level kept, once
+     * all the levels have been encoded. The pyramid must not be used after.
+     */
+    public void release() {
+        keptImages.forEach(RasterPool.getShared()::release);
+        keptImages.clear();
+        parentLevels.clear();
+        RasterPool.getShared().release(source);
+        source = null;
+    }
+
+    private BufferedImage resample(LevelPlan.Level level) {
+        BufferedImage base = level.getParent() == null ? source : getLevel(level.getParent());
+        BufferedImage scaledImage = resample(base, level.getSize().width, level.getSize().height);
+
+        if(level.hasChildren() && scaledImage != source)
+            keptImages.add(scaledImage);
+
+        return scaledImage;
+    }
+
+    private BufferedImage resample(BufferedImage base, int scaledWidth, int scaledHeight) {
+        // such as "100" or the size of the image (see release)
+        if(base == source && source.getWidth() == scaledWidth &&
+                source.getHeight() == scaledHeight)
+            return source;
+
+        // a subsampled source always gets a high quality resample
+        if(base == source && source.getWidth() != width)
+            return Resampler.resample(base, scaledWidth, scaledHeight,
+                                      settings.getResampleFilter());
+
+        return IOUtils.scale(base, scaledWidth, scaledHeight, settings);
+    }
+
+    private static int getSubsampling(double largestPercent, ScaleSettings settings) {
+        if(!settings.isDecodeSubsampling())
+            return 1;
+
+        return new SubsamplingPolicy(settings.getSubsamplingTolerance())
+                        .getFactor(largestPercent);
+    }
+
+    private static ImagePyramid create(BufferedImage source, Dimension size,
+                                       ScaleSettings settings) {
+        if(source == null)
+            return null;
+
+        ImagePyramid pyramid = size == null ? new ImagePyramid(source, settings) :
+                new ImagePyramid(source, size.width, size.height, settings);
+
+        // the decoded pixels are not needed once converted to an int raster
+        if(pyramid.source != source)
+            RasterPool.getShared().release(source);
+
+        return pyramid;
+    }
+}
@@ -0,0 +1,53 @@
+package imagescalerfx.utils;
+
+import java.util.List;
+
+/**
+ * Orders in which the discovered images are scaled.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum JobOrder {
+    /**
+     * In the order the folder is walked, starting with the first image found.
+     */
+    DISCOVERY("Discovery order"),
+    /**
+     * Largest estimated cost first (longest processing time first), so a
+     * huge image never starts last while the other threads sit idle. The
+     * whole folder is walked, and the header of every image read, before
+     * the first image is scaled.
+     */
+    LARGEST_FIRST("Largest first");
+
+    private String description;
+
+    JobOrder(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Returns the estimated cost of scaling an image: the pixels decoded
+     * and resampled, which are the pixels of the source once plus the
+     * pixels of every level (levels of the same size are counted once).
+     * @param width Width of the image.
+     * @param height Height of the image.
+     * @param levels Level specs of the settings.
+     * @return Estimated cost, in pixels.
+     */
+    public static long estimateCost(int width, int height, List<LevelSpec> levels) {
+        double area = 1 + new LevelPlan(width, height, levels, false).getArea();
+
+        return (long) ((long) width * height * area);
+    }
+
+    /**
+     * Return the order description (for the choice boxes).
+     * @return Order description.
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
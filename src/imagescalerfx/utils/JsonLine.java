@@ -0,0 +1,100 @@
+package imagescalerfx.utils;
+
+import java.util.Locale;
+
+/**
+ * Class in charge of building a flat JSON object in a single line, used to
+ * report progress and results in a machine-readable format.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class JsonLine {
+    private StringBuilder json;
+
+    /**
+     * Initialize an empty JSON object.
+     */
+    public JsonLine() {
+        json = new StringBuilder("{");
+    }
+
+    /**
+     * Adds a text field to the object.
+     * @param name Field name.
+     * @param value Field value (null is written as null).
+     * @return This object.
+     */
+    public JsonLine put(String name, String value) {
+        return putRaw(name, value == null ? "null" : quote(value));
+    }
+
+    /**
+     * Adds an integer field to the object.
+     * @param name Field name.
+     * @param value Field value.
+     * @return This object.
+     */
+    public JsonLine put(String name, long value) {
+        return putRaw(name, Long.toString(value));
+    }
+
+    /**
+     * Adds a decimal field to the object.
+     * @param name Field name.
+     * @param value Field value (NaN and infinites are written as null).
+     * @return This object.
+     */
+    public JsonLine put(String name, double value) {
+        return putRaw(name, Double.isFinite(value) ?
+                String.format(Locale.ROOT, "%.3f", value) : "null");
+    }
+
+    /**
+     * Adds a boolean field to the object.
+     * @param name Field name.
+     * @param value Field value.
+     * @return This object.
+     */
+    public JsonLine put(String name, boolean value) {
+        return putRaw(name, Boolean.toString(value));
+    }
+
+    /**
+     * Returns the object as a JSON text, without line breaks.
+     * @return JSON text.
+     */
+    @Override
+    public String toString() {
+        return json + "}";
+    }
+
+    private JsonLine putRaw(String name, String value) {
+        if(json.length() > 1)
+            json.append(',');
+
+        json.append(quote(name)).append(':').append(value);
+        return this;
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder("\"");
+
+        for(char c : text.toCharArray()) {
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if(c < 0x20)
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    else
+                        quoted.append(c);
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,199 @@
+package imagescalerfx.utils;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan of the levels of one image: the level specs resolved to pixel
+ * sizes for the size of the image, and the order in which they are
+ * produced.<br/>
+ * Specs that resolve to the same size (such as "w640" and "640x480" for a
+ * 4:3 image) are a single level, resampled and encoded once and written
+ * once for each spec. The levels are produced from the largest to the
+ * smallest, and when the settings derive levels from larger ones, each
+ * level is resampled from the smallest level planned before it that still
+ * covers its width and height (its parent), or else from the original
+ * image. So no level is ever enlarged from a smaller one, and every
+ * resample reads as few pixels as possible.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class LevelPlan {
+    private int width;
+    private int height;
+    private List<Level> levels;
+
+    /**
+     * Plans the given levels for an image of the given size.
+     * @param width Width of the original image.
+     * @param height Height of the original image.
+     * @param specs Level specs of the settings.
+     * @param deriveFromLargerLevel True to resample each level from its
+     *                              parent, false to resample every level
+     *                              from the original image.
+     */
+    public LevelPlan(int width, int height, List<LevelSpec> specs, boolean deriveFromLargerLevel) {
+        this.width = width;
+        this.height = height;
+
+        Map<Dimension, Level> levelsBySize = new LinkedHashMap<>();
+        for(LevelSpec spec : specs)
+            levelsBySize.computeIfAbsent(spec.getSize(width, height), Level::new)
+                        .specs.add(spec);
+
+        levels = new ArrayList<>(levelsBySize.values());
+        // stable, so levels of the same area keep the order of the settings
+        levels.sort((a, b) -> Long.compare(b.getPixels(), a.getPixels()));
+
+        for(int i = 0; i < levels.size(); i++) {
+            Level level = levels.get(i);
+            level.index = i;
+
+            if(deriveFromLargerLevel)
+                for(int j = i - 1; j >= 0 && level.parent == null; j--)
+                    if(levels.get(j).covers(level))
+                        level.parent = levels.get(j);
+
+            if(level.parent != null)
+                level.parent.children++;
+        }
+    }
+
+    /**
+     * Plans the levels of the settings for an image of the given size.
+     * @param size Size of the original image.
+     * @param settings Options with the level specs.
+     * @return Plan of the levels.
+     */
+    public static LevelPlan of(Dimension size, ScaleSettings settings) {
+        return new LevelPlan(size.width, size.height, settings.getLevels(),
+                             settings.isDeriveFromLargerLevel());
+    }
+
+    /**
+     * Returns the levels in the order they are produced, from the largest
+     * to the smallest.
+     * @return Levels of the image.
+     */
+    public List<Level> getLevels() {
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * Returns the number of files written: one for each spec.
+     * @return Number of outputs.
+     */
+    public int getOutputs() {
+        return levels.stream().mapToInt(level -> level.specs.size()).sum();
+    }
+
+    /**
+     * Returns the ratio between the largest level and the original image,
+     * which limits how much the source can be subsampled.
+     * @return Largest scale, from 0 to 1 (0 if there are no levels).
+     */
+    public double getLargestScale() {
+        if(levels.isEmpty())
+            return 0;
+
+        Dimension largest = levels.get(0).size;
+        return Math.max((double) largest.width / width, (double) largest.height / height);
+    }
+
+    /**
+     * Returns the pixels of every level, relative to the pixels of the
+     * original image.
+     * @return Area of the levels (1 is the area of the original image).
+     */
+    public double getArea() {
+        double pixels = 0;
+        for(Level level : levels)
+            pixels += level.getPixels();
+
+        return pixels / ((double) width * height);
+    }
+
+    /**
+     * Level of the plan: a pixel size and the specs that resolve to it.
+     */
+    public static class Level {
+        private Dimension size;
+        private List<LevelSpec> specs;
+        private Level parent;
+        private int children;
+        private int index;
+
+        Level(Dimension size) {
+            this.size = size;
+            specs = new ArrayList<>();
+        }
+
+        /**
+         * Returns the size of the scaled instance.
+         * @return Width and height, in pixels.
+         */
+        public Dimension getSize() {
+            return new Dimension(size);
+        }
+
+        /**
+         * Returns the specs written with this level, in the order of the
+         * settings.
+         * @return Level specs.
+         */
+        public List<LevelSpec> getSpecs() {
+            return Collections.unmodifiableList(specs);
+        }
+
+        /**
+         * Returns the level this one is resampled from.
+         * @return Parent level, or null to resample the original image.
+         */
+        public Level getParent() {
+            return parent;
+        }
+
+        /**
+         * Returns if other levels are resampled from this one, so it must
+         * be kept in memory until they are.
+         * @return True if the level has children.
+         */
+        public boolean hasChildren() {
+            return children > 0;
+        }
+
+        /**
+         * Returns the position of the level in the plan.
+         * @return Index of the level, 0 for the largest.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns the names of the specs of the level, joined by '+', as
+         * used in the timings.
+         * @return Name of the level.
+         */
+        public String getName() {
+            StringBuilder name = new StringBuilder();
+            for(LevelSpec spec : specs)
+                name.append(name.length() > 0 ? "+" : "").append(spec.getName());
+
+            return name.toString();
+        }
+
+        private long getPixels() {
+            return (long) size.width * size.height;
+        }
+
+        private boolean covers(Level level) {
+            return size.width >= level.size.width && size.height >= level.size.height;
+        }
+    }
+}
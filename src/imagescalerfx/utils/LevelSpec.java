@@ -0,0 +1,204 @@
+package imagescalerfx.utils;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Declarative target of a scaled instance: a percentage of the original
+ * image, a fixed width, or a box that the image must fit in. The size of
+ * the scaled instance is only known once the size of the original image is
+ * known (see getSize), and the levels of an image are produced in the
+ * order of a LevelPlan.<br/>
+ * The text form is used in the settings, the command line and the main
+ * view, and as the prefix of the scaled files:
+ * <ul>
+ *     <li>"50" (or "50%"): half of the original size.</li>
+ *     <li>"w640": 640 pixels wide, keeping the aspect ratio.</li>
+ *     <li>"640x480": as large as possible inside a 640x480 box, keeping
+ *     the aspect ratio.</li>
+ * </ul>
+ * The images are never enlarged: a width or box larger than the original
+ * gives the original size.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class LevelSpec {
+    // each dimension is at most 7 digits, so the names fit in a container entry
+    private static final int MAX_PIXELS = 9_999_999;
+
+    private Kind kind;
+    private int width;
+    private int height;
+
+    private LevelSpec(Kind kind, int width, int height) {
+        this.kind = kind;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates a level with a percentage of the original size.
+     * @param percent Scaling percentage, from 1 to 100.
+     * @return Level spec.
+     */
+    public static LevelSpec percent(int percent) {
+        if(percent <= 0 || percent > 100)
+            throw new IllegalArgumentException("Invalid scaling percentage: " + percent);
+
+        return new LevelSpec(Kind.PERCENT, percent, 0);
+    }
+
+    /**
+     * Creates a level with a fixed width.
+     * @param width Width of the scaled instance, in pixels.
+     * @return Level spec.
+     */
+    public static LevelSpec width(int width) {
+        if(width <= 0 || width > MAX_PIXELS)
+            throw new IllegalArgumentException("Invalid width: " + width);
+
+        return new LevelSpec(Kind.WIDTH, width, 0);
+    }
+
+    /**
+     * Creates a level that fits in a box.
+     * @param width Width of the box, in pixels.
+     * @param height Height of the box, in pixels.
+     * @return Level spec.
+     */
+    public static LevelSpec box(int width, int height) {
+        if(width <= 0 || height <= 0 || width > MAX_PIXELS || height > MAX_PIXELS)
+            throw new IllegalArgumentException("Invalid box: " + width + "x" + height);
+
+        return new LevelSpec(Kind.BOX, width, height);
+    }
+
+    /**
+     * Creates a level from its text form ("50", "50%", "w640" or "640x480").
+     * @param text Text form of the level.
+     * @return Level spec.
+     * @throws IllegalArgumentException If the text is not a valid level.
+     */
+    public static LevelSpec parse(String text) {
+        String spec = text.trim().toLowerCase();
+
+        try {
+            if(spec.startsWith("w"))
+                return width(Integer.parseInt(spec.substring(1)));
+
+            int separator = spec.indexOf('x');
+            if(separator >= 0)
+                return box(Integer.parseInt(spec.substring(0, separator)),
+                           Integer.parseInt(spec.substring(separator + 1)));
+
+            if(spec.endsWith("%"))
+                spec = spec.substring(0, spec.length() - 1);
+            return percent(Integer.parseInt(spec));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid level: " + text);
+        }
+    }
+
+    /**
+     * Creates the levels of a comma-separated list, such as
+     * "90,50,w640,1280x720". Repeated levels are ignored.
+     * @param text Text form of the levels.
+     * @return Level specs, in the order of the list.
+     * @throws IllegalArgumentException If a level is not valid.
+     */
+    public static List<LevelSpec> parseList(String text) {
+        List<LevelSpec> levels = new ArrayList<>();
+
+        for(String spec : text.split(","))
+            if(!spec.isBlank()) {
+                LevelSpec level = parse(spec);
+                if(!levels.contains(level))
+                    levels.add(level);
+            }
+
+        return levels;
+    }
+
+    /**
+     * Creates the levels of the given percentages.
+     * @param percents Scaling percentages, from 1 to 100.
+     * @return Level specs, in the same order.
+     */
+    public static List<LevelSpec> percents(int... percents) {
+        List<LevelSpec> levels = new ArrayList<>();
+        for(int percent : percents)
+            levels.add(percent(percent));
+
+        return levels;
+    }
+
+    /**
+     * Returns the size of this level for an original image of the given
+     * size.
+     * @param sourceWidth Width of the original image.
+     * @param sourceHeight Height of the original image.
+     * @return Size of the scaled instance, at least 1x1.
+     */
+    public Dimension getSize(int sourceWidth, int sourceHeight) {
+        if(kind == Kind.PERCENT) {
+            double percent = width / 100.0;
+            return new Dimension(Math.max(1, (int) (sourceWidth * percent)),
+                                 Math.max(1, (int) (sourceHeight * percent)));
+        }
+
+        double scale = kind == Kind.WIDTH ? (double) width / sourceWidth :
+                Math.min((double) width / sourceWidth, (double) height / sourceHeight);
+
+        if(scale >= 1)
+            return new Dimension(sourceWidth, sourceHeight);
+
+        return new Dimension(Math.max(1, (int) Math.round(sourceWidth * scale)),
+                             Math.max(1, (int) Math.round(sourceHeight * scale)));
+    }
+
+    /**
+     * Returns the text form of the level, which is also the prefix of its
+     * scaled files.
+     * @return Name of the level.
+     */
+    public String getName() {
+        switch (kind) {
+            case PERCENT: return Integer.toString(width);
+            case WIDTH: return "w" + width;
+            default: return width + "x" + height;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(!(other instanceof LevelSpec))
+            return false;
+
+        LevelSpec level = (LevelSpec) other;
+        return kind == level.kind && width == level.width && height == level.height;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, width, height);
+    }
+
+    /**
+     * Returns the text form of the level.
+     * @return Name of the level.
+     */
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    /**
+     * Ways of giving the size of a level.
+     */
+    private enum Kind {
+        PERCENT, WIDTH, BOX
+    }
+}
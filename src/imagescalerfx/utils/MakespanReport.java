@@ -0,0 +1,149 @@
+package imagescalerfx.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Report of the makespan of a batch (the time from the first image started
+ * to the last one finished) compared with the makespan that the same
+ * images would have had in discovery order and in largest-first order.
+ * The orders are simulated with the busy time of each image (the time
+ * spent in its phases, see PhaseTimings), giving each image to the first
+ * thread that is free (list scheduling).<br/>
+ * The model only holds when each image runs on one pool of threads: the
+ * pipeline modes overlap the stages of an image on pools of their own, so
+ * they have no report (see ExecutionMode.isStaged).
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class MakespanReport {
+    private int threads;
+    private long actualMillis;
+    private long discoveryOrderMillis;
+    private long largestFirstMillis;
+    private long lowerBoundMillis;
+
+    private MakespanReport(int threads, long actualMillis) {
+        this.threads = threads;
+        this.actualMillis = actualMillis;
+    }
+
+    /**
+     * Creates the report of a finished batch. The largest-first order uses
+     * the estimated cost of the images, or their busy time if the cost
+     * was not estimated (so it is the best largest-first order possible).
+     * @param scalers Threads that scaled the images, with their times.
+     * @param threads Number of threads that scaled the images at once.
+     * @param actualMillis Measured makespan of the batch.
+     * @return Report of the batch.
+     */
+    public static MakespanReport of(List<ThreadScaler> scalers, int threads, long actualMillis) {
+        MakespanReport report = new MakespanReport(threads, actualMillis);
+        List<ThreadScaler> finished;
+
+        synchronized (scalers) {
+            finished = scalers.stream()
+                              .filter(ThreadScaler::isFinished)
+                              .collect(Collectors.toList());
+        }
+
+        boolean costsKnown = finished.stream()
+                                     .allMatch(s -> s.getImage().getEstimatedCost() >= 0);
+
+        finished.sort(Comparator.comparingInt(s -> s.getImage().getDiscoveryIndex()));
+        report.discoveryOrderMillis = simulate(getMilliseconds(finished), threads);
+
+        finished.sort(costsKnown ?
+                Comparator.comparingLong((ThreadScaler s) -> s.getImage().getEstimatedCost())
+                          .reversed() :
+                Comparator.comparingLong(MakespanReport::getBusyMillis).reversed());
+        report.largestFirstMillis = simulate(getMilliseconds(finished), threads);
+
+        long totalMillis = finished.stream().mapToLong(MakespanReport::getBusyMillis).sum();
+        long longestMillis = finished.stream().mapToLong(MakespanReport::getBusyMillis)
+                                     .max().orElse(0);
+        report.lowerBoundMillis = Math.max(longestMillis, (totalMillis + threads - 1) / threads);
+
+        return report;
+    }
+
+    /**
+     * Simulates list scheduling: each job, in the given order, starts on
+     * the first thread that is free.
+     * @param durations Duration of each job, in order.
+     * @param threads Number of threads.
+     * @return Time when the last job finishes.
+     */
+    public static long simulate(List<Long> durations, int threads) {
+        PriorityQueue<Long> freeTimes = new PriorityQueue<>();
+        for(int i = 0; i < Math.max(1, threads); i++)
+            freeTimes.add(0L);
+
+        long makespan = 0;
+        for(long duration : durations) {
+            long end = freeTimes.poll() + duration;
+            freeTimes.add(end);
+            makespan = Math.max(makespan, end);
+        }
+
+        return makespan;
+    }
+
+    /**
+     * Returns the number of threads of the simulations.
+     * @return Number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the measured makespan of the batch.
+     * @return Milliseconds of the batch.
+     */
+    public long getActualMillis() {
+        return actualMillis;
+    }
+
+    /**
+     * Returns the simulated makespan in discovery order (FIFO).
+     * @return Milliseconds of the batch in discovery order.
+     */
+    public long getDiscoveryOrderMillis() {
+        return discoveryOrderMillis;
+    }
+
+    /**
+     * Returns the simulated makespan in largest-first order (LPT).
+     * @return Milliseconds of the batch in largest-first order.
+     */
+    public long getLargestFirstMillis() {
+        return largestFirstMillis;
+    }
+
+    /**
+     * Returns the makespan that no order can beat: the longest image, or
+     * the total time split evenly between the threads.
+     * @return Lower bound of the makespan, in milliseconds.
+     */
+    public long getLowerBoundMillis() {
+        return lowerBoundMillis;
+    }
+
+    private static List<Long> getMilliseconds(List<ThreadScaler> scalers) {
+        List<Long> milliseconds = new ArrayList<>();
+        for(ThreadScaler scaler : scalers)
+            milliseconds.add(getBusyMillis(scaler));
+
+        return milliseconds;
+    }
+
+    private static long getBusyMillis(ThreadScaler scaler) {
+        return TimeUnit.NANOSECONDS.toMillis(scaler.getTimings().getBusyNanos());
+    }
+}
@@ -0,0 +1,188 @@
+package imagescalerfx.utils;
+
+import java.awt.Dimension;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Admission control of the images that are scaled at once. Before an
+ * image is decoded, its memory is estimated from the dimensions of its
+ * header (see estimateBytes), and the image waits while the images already
+ * admitted would exceed the budget. So many small images are scaled at
+ * full parallelism, while a few huge ones are throttled automatically
+ * instead of exhausting the heap.<br/>
+ * An image is always admitted when nothing else is, even if it is larger
+ * than the whole budget, so the batch never blocks.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class MemoryBudget {
+    private static final int BYTES_PER_PIXEL = 4;
+
+    private long budgetBytes;
+    private long admittedBytes;
+    private long peakBytes;
+    private int admittedImages;
+    private int waits;
+    private long waitNanos;
+
+    /**
+     * Initialize a budget with nothing admitted.
+     * @param budgetBytes Maximum estimated bytes of the images scaled at
+     *                    once (0 disables the admission control).
+     */
+    public MemoryBudget(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Estimates the peak memory needed to scale an image with the given
+     * settings: the decoded source (smaller if it is subsampled, twice if
+     * the Resampler converts it to an int raster), the levels kept to
+     * derive the smaller ones, and the intermediate buffer of the
+     * Resampler. Streamed images only keep a strip and their levels.
+     * @param size Dimensions of the image, from its header.
+     * @param settings Options used to scale the image.
+     * @return Estimated bytes, or 0 if the size is unknown.
+     */
+    public static long estimateBytes(Dimension size, ScaleSettings settings) {
+        if(size == null)
+            return 0;
+
+        long pixels = (long) size.width * size.height;
+        LevelPlan plan = LevelPlan.of(size, settings);
+
+        if(plan.getLevels().isEmpty())
+            return 0;
+
+        double largest = plan.getLargestScale();
+        double levelsArea = plan.getArea();
+
+        // the accumulators of every level are filled at once
+        if(settings.isStreamed(size))
+            return (long) ((settings.getStreamingStripPixels() + pixels * levelsArea)
+                           * BYTES_PER_PIXEL);
+
+        int subsampling = settings.isDecodeSubsampling() ?
+                new SubsamplingPolicy(settings.getSubsamplingTolerance()).getFactor(largest) : 1;
+        long sourceBytes = pixels / ((long) subsampling * subsampling) * BYTES_PER_PIXEL;
+
+        double keptLevelsArea = settings.isDeriveFromLargerLevel() ?
+                levelsArea : largest * largest;
+        long levelsBytes = (long) (pixels * keptLevelsArea * BYTES_PER_PIXEL);
+
+        if(settings.getScalingEngine() == ScalingEngine.RESAMPLER)
+            // the converted raster, and the buffer of the horizontal pass
+            return 2 * sourceBytes + levelsBytes + (long) (sourceBytes * largest * subsampling);
+
+        return sourceBytes + levelsBytes;
+    }
+
+    /**
+     * Waits until the image fits in the budget, and admits it. A worker of
+     * a fork/join pool waits through ForkJoinPool.managedBlock, so the pool
+     * starts a spare worker meanwhile and the level tasks of the images
+     * already admitted can still be stolen.
+     * @param bytes Estimated bytes of the image.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        ForkJoinPool.managedBlock(new Admission(bytes));
+    }
+
+    /**
+     * Gives back the memory of an image admitted before, once it has been
+     * scaled (or has failed).
+     * @param bytes Estimated bytes of the image, as given to acquire.
+     */
+    public synchronized void release(long bytes) {
+        admittedImages--;
+        admittedBytes -= bytes;
+        notifyAll();
+    }
+
+    /**
+     * Returns the estimated bytes of the images admitted now.
+     * @return Admitted bytes.
+     */
+    public synchronized long getAdmittedBytes() {
+        return admittedBytes;
+    }
+
+    /**
+     * Returns the most estimated bytes admitted at once.
+     * @return Peak of the admitted bytes.
+     */
+    public synchronized long getPeakBytes() {
+        return peakBytes;
+    }
+
+    /**
+     * Returns how many images had to wait to be admitted.
+     * @return Number of images throttled.
+     */
+    public synchronized int getWaits() {
+        return waits;
+    }
+
+    /**
+     * Returns the total time that the images waited to be admitted.
+     * @return Milliseconds waited.
+     */
+    public synchronized long getWaitMillis() {
+        return waitNanos / 1_000_000;
+    }
+
+    private boolean fits(long bytes) {
+        return budgetBytes <= 0 || admittedImages == 0 || admittedBytes + bytes <= budgetBytes;
+    }
+
+    private void admit(long bytes) {
+        admittedImages++;
+        admittedBytes += bytes;
+        peakBytes = Math.max(peakBytes, admittedBytes);
+    }
+
+    /**
+     * Admission of an image, that waits while the image does not fit.
+     */
+    private class Admission implements ForkJoinPool.ManagedBlocker {
+        private long bytes;
+        private boolean admitted;
+
+        Admission(long bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            synchronized (MemoryBudget.this) {
+                if(!admitted && fits(bytes)) {
+                    admit(bytes);
+                    admitted = true;
+                }
+
+                return admitted;
+            }
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            synchronized (MemoryBudget.this) {
+                long startTime = System.nanoTime();
+                waits++;
+
+                try {
+                    while(!fits(bytes))
+                        MemoryBudget.this.wait();
+                } finally {
+                    waitNanos += System.nanoTime() - startTime;
+                }
+
+                admit(bytes);
+                admitted = true;
+                return true;
+            }
+        }
+    }
+}
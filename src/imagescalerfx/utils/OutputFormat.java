@@ -0,0 +1,34 @@
+package imagescalerfx.utils;
+
+/**
+ * Ways of storing the scaled instances of an image.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum OutputFormat {
+    /**
+     * A subfolder with the name of the image, with one file for each level.
+     */
+    FOLDER("Folder"),
+    /**
+     * A single file with every level and an index of their offsets, next
+     * to where the folder would be (see PyramidContainer).
+     */
+    CONTAINER("Pyramid container");
+
+    private String description;
+
+    OutputFormat(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Return the format description (for the choice boxes).
+     * @return Format description.
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,83 @@
+package imagescalerfx.utils;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distribution of the durations of one phase of the scaling, over every
+ * image and level of a batch, to get its percentiles.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class PhaseHistogram {
+    private long[] nanos;
+    private int count;
+    private boolean sorted;
+
+    /**
+     * Initialize an empty histogram.
+     */
+    public PhaseHistogram() {
+        nanos = new long[64];
+    }
+
+    /**
+     * Builds the histogram of every phase from the measurements of the
+     * given scalers.
+     * @param scalers Scalers of a batch.
+     * @return Histogram of each phase.
+     */
+    public static Map<PipelineStage, PhaseHistogram> of(List<ThreadScaler> scalers) {
+        Map<PipelineStage, PhaseHistogram> histograms = new EnumMap<>(PipelineStage.class);
+        for(PipelineStage phase : PipelineStage.values())
+            histograms.put(phase, new PhaseHistogram());
+
+        for(ThreadScaler scaler : scalers)
+            for(PhaseTimings.Sample sample : scaler.getTimings().getSamples())
+                histograms.get(sample.getPhase()).add(sample.getNanos());
+
+        return histograms;
+    }
+
+    /**
+     * Adds a duration to the histogram.
+     * @param duration Nanoseconds of the phase.
+     */
+    public void add(long duration) {
+        if(count == nanos.length)
+            nanos = Arrays.copyOf(nanos, count * 2);
+
+        nanos[count++] = duration;
+        sorted = false;
+    }
+
+    /**
+     * Returns the number of durations added.
+     * @return Number of durations.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the duration that is not exceeded by the given fraction of
+     * the durations (nearest rank).
+     * @param percentile Fraction of the durations, from 0 to 1 (0.95 for p95).
+     * @return Nanoseconds of the percentile, or 0 if the histogram is empty.
+     */
+    public long getPercentile(double percentile) {
+        if(count == 0)
+            return 0;
+
+        if(!sorted) {
+            Arrays.sort(nanos, 0, count);
+            sorted = true;
+        }
+
+        int rank = (int) Math.ceil(percentile * count);
+        return nanos[Math.min(count, Math.max(1, rank)) - 1];
+    }
+}
@@ -0,0 +1,184 @@
+package imagescalerfx.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class that measures, with System.nanoTime, how long each phase of the
+ * scaling of an image takes: read and decode for the whole image, and
+ * resample, encode and write for each level. Every measurement is also
+ * emitted as a Flight Recorder event (see ScalePhaseEvent).<br/>
+ * Images larger than the streaming threshold are read, decoded and reduced
+ * in strips at once, so all that time is measured as decode.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class PhaseTimings {
+    /**
+     * Level of the phases measured for the whole image (read and decode).
+     */
+    public static final String WHOLE_IMAGE = "0";
+
+    private String imageName;
+    private AtomicLongArray totals;
+    private List<Sample> samples;
+
+    /**
+     * Initialize the timings of an image.
+     * @param imageName Name of the image.
+     */
+    public PhaseTimings(String imageName) {
+        this.imageName = imageName;
+        totals = new AtomicLongArray(PipelineStage.values().length);
+        samples = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * Starts measuring a phase. It can be called from several threads at once.
+     * @param phase Phase measured.
+     * @param level Name of the level (see LevelSpec), or WHOLE_IMAGE if the
+     *              phase is for the whole image.
+     * @return Measurement to stop when the phase finishes.
+     */
+    public Span start(PipelineStage phase, String level) {
+        return new Span(phase, level);
+    }
+
+    /**
+     * Returns the time spent in a phase, adding up all the levels.
+     * @param phase Phase of the scaling.
+     * @return Nanoseconds spent in the phase.
+     */
+    public long getNanos(PipelineStage phase) {
+        return totals.get(phase.ordinal());
+    }
+
+    /**
+     * Returns the time spent in all the phases, that is, the time the image
+     * kept a thread busy (without the time it waited in a queue).
+     * @return Nanoseconds spent in the phases.
+     */
+    public long getBusyNanos() {
+        long nanos = 0;
+        for(int i = 0; i < totals.length(); i++)
+            nanos += totals.get(i);
+
+        return nanos;
+    }
+
+    /**
+     * Returns every measurement, in the order they finished.
+     * @return Measurements of the image.
+     */
+    public List<Sample> getSamples() {
+        synchronized (samples) {
+            return new ArrayList<>(samples);
+        }
+    }
+
+    /**
+     * Writes the measurements of the given scalers to a CSV file, one row
+     * for each phase of each level.
+     * @param scalers Scalers whose measurements are written.
+     * @param csvPath Resulting file.
+     * @throws IOException If the file could not be written.
+     */
+    public static void writeCsv(List<ThreadScaler> scalers, Path csvPath) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(csvPath, StandardCharsets.UTF_8)) {
+            writer.write("image,cacheHit,phase,level,milliseconds");
+            writer.newLine();
+
+            for(ThreadScaler scaler : scalers)
+                for(Sample sample : scaler.getTimings().getSamples()) {
+                    writer.write(String.format(Locale.ROOT, "%s,%b,%s,%s,%.3f",
+                            scaler.getImage().getPath(), scaler.isCacheHit(),
+                            sample.getPhase().name(), sample.getLevel(),
+                            sample.getNanos() / 1e6));
+                    writer.newLine();
+                }
+        }
+    }
+
+    /**
+     * Measurement of a phase that has started.
+     */
+    public class Span {
+        private PipelineStage phase;
+        private String level;
+        private ScalePhaseEvent event;
+        private long startTime;
+
+        private Span(PipelineStage phase, String level) {
+            this.phase = phase;
+            this.level = level;
+            event = new ScalePhaseEvent();
+            event.begin();
+            startTime = System.nanoTime();
+        }
+
+        /**
+         * Stops measuring the phase and records its duration.
+         */
+        public void stop() {
+            long nanos = System.nanoTime() - startTime;
+            totals.addAndGet(phase.ordinal(), nanos);
+            samples.add(new Sample(phase, level, nanos));
+
+            event.end();
+            if(event.shouldCommit()) {
+                event.image = imageName;
+                event.phase = phase.name();
+                event.level = level;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Duration of a phase of an image or of one of its levels.
+     */
+    public static class Sample {
+        private PipelineStage phase;
+        private String level;
+        private long nanos;
+
+        Sample(PipelineStage phase, String level, long nanos) {
+            this.phase = phase;
+            this.level = level;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Returns the phase measured.
+         * @return Phase of the scaling.
+         */
+        public PipelineStage getPhase() {
+            return phase;
+        }
+
+        /**
+         * Returns the level measured.
+         * @return Name of the level, or WHOLE_IMAGE for the whole image.
+         */
+        public String getLevel() {
+            return level;
+        }
+
+        /**
+         * Returns the duration of the phase.
+         * @return Nanoseconds spent in the phase.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+    }
+}
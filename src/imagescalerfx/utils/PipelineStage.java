@@ -0,0 +1,56 @@
+package imagescalerfx.utils;
+
+/**
+ * Stages of the scaling pipeline (see ScalePipeline), in the order that
+ * every image goes through them.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum PipelineStage {
+    /**
+     * Reads the bytes of the source file.
+     */
+    READ("Read", true),
+    /**
+     * Decodes the source bytes into an image.
+     */
+    DECODE("Decode", false),
+    /**
+     * Scales the decoded image to one level.
+     */
+    RESAMPLE("Resample", false),
+    /**
+     * Encodes a scaled level into the bytes of its file.
+     */
+    ENCODE("Encode", false),
+    /**
+     * Writes the bytes of a scaled level to its file.
+     */
+    WRITE("Write", true);
+
+    private String description;
+    private boolean io;
+
+    PipelineStage(String description, boolean io) {
+        this.description = description;
+        this.io = io;
+    }
+
+    /**
+     * Returns if the stage waits on the disk instead of using the processor.
+     * @return True if it is an I/O stage.
+     */
+    public boolean isIO() {
+        return io;
+    }
+
+    /**
+     * Return the stage description.
+     * @return Stage description.
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
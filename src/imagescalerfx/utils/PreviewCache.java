@@ -0,0 +1,113 @@
+package imagescalerfx.utils;
+
+import javafx.scene.image.Image;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the images shown in the previews. Each image is decoded in the
+ * background and at the size it is displayed, not at full resolution, and
+ * the least recently used images are evicted when the cache exceeds its
+ * memory budget.<br/>
+ * An image is cached by its path, modification time and size, so a file
+ * scaled again is loaded again.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class PreviewCache {
+    private long budgetBytes;
+    private long usedBytes;
+    private LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Initialize an empty cache.
+     * @param budgetBytes Maximum memory of the cached images.
+     */
+    public PreviewCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+        entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the preview of an image that fits in the given size. If it is
+     * not cached, it starts loading in the background and the returned
+     * image is filled when the load finishes.
+     * @param path Image file.
+     * @param width Width of the preview, in pixels.
+     * @param height Height of the preview, in pixels.
+     * @return Preview of the image.
+     */
+    public synchronized Image get(Path path, double width, double height) {
+        File file = path.toFile();
+        String key = file.getAbsolutePath() + "|" + file.lastModified()
+                     + "|" + Math.round(width) + "x" + Math.round(height);
+
+        Entry entry = entries.get(key);
+        if(entry != null && !entry.image.isError())
+            return entry.image;
+
+        Image image = new Image(file.toURI().toString(), width, height,
+                                true, true, true);
+        // with the ratio preserved, the image is never larger than the box
+        entry = new Entry(image, Math.round(width) * Math.round(height) * 4);
+
+        Entry previous = entries.put(key, entry);
+        if(previous != null)
+            usedBytes -= previous.bytes;
+        usedBytes += entry.bytes;
+
+        evict(key);
+        return image;
+    }
+
+    /**
+     * Starts loading the preview of an image that will probably be shown
+     * soon, such as the neighbours of the selected one.
+     * @param path Image file.
+     * @param width Width of the preview, in pixels.
+     * @param height Height of the preview, in pixels.
+     */
+    public void prefetch(Path path, double width, double height) {
+        get(path, width, height);
+    }
+
+    /**
+     * Returns the memory of the cached images.
+     * @return Bytes used by the cache.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    private void evict(String keptKey) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+        // the first entries are the least recently used
+        while(usedBytes > budgetBytes && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+
+            if(!eldest.getKey().equals(keptKey)) {
+                usedBytes -= eldest.getValue().bytes;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Cached image with its estimated memory.
+     */
+    private static class Entry {
+        private Image image;
+        private long bytes;
+
+        Entry(Image image, long bytes) {
+            this.image = image;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package imagescalerfx.utils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class where the workers of a batch publish their progress: images
+ * discovered and finished, levels written and bytes read and written.
+ * Publishing only adds to lock-free counters and raises a changed flag, so
+ * a view can redraw at its own pace (once per frame) only when something
+ * changed (see StatusTimer).
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ProgressTracker {
+    private int levelsPerImage;
+    private long startTime;
+    private LongAdder discoveredImages;
+    private LongAdder finishedImages;
+    private LongAdder cacheHits;
+    private LongAdder levelsDone;
+    private LongAdder bytesRead;
+    private LongAdder bytesWritten;
+    private volatile boolean discoveryFinished;
+    private volatile long finishTime;
+    private AtomicBoolean changed;
+
+    /**
+     * Initialize the progress of a batch that starts now.
+     * @param levelsPerImage Number of levels of each image.
+     */
+    public ProgressTracker(int levelsPerImage) {
+        this.levelsPerImage = levelsPerImage;
+        startTime = System.nanoTime();
+        discoveredImages = new LongAdder();
+        finishedImages = new LongAdder();
+        cacheHits = new LongAdder();
+        levelsDone = new LongAdder();
+        bytesRead = new LongAdder();
+        bytesWritten = new LongAdder();
+        finishTime = -1;
+        changed = new AtomicBoolean(true);
+    }
+
+    /**
+     * Publishes that an image has been discovered.
+     */
+    public void imageDiscovered() {
+        discoveredImages.increment();
+        changed.set(true);
+    }
+
+    /**
+     * Publishes that the whole input folder has been walked.
+     */
+    public void discoveryFinished() {
+        discoveryFinished = true;
+        changed.set(true);
+    }
+
+    /**
+     * Publishes that some bytes of a source image have been read.
+     * @param bytes Number of bytes read.
+     */
+    public void bytesRead(long bytes) {
+        bytesRead.add(bytes);
+        changed.set(true);
+    }
+
+    /**
+     * Publishes that a level has been written.
+     * @param bytes Size of the level file.
+     */
+    public void levelWritten(long bytes) {
+        levelsDone.increment();
+        bytesWritten.add(bytes);
+        changed.set(true);
+    }
+
+    /**
+     * Publishes that an image has been finished.
+     * @param cacheHit True if it was skipped because it was up to date.
+     */
+    public void imageFinished(boolean cacheHit) {
+        if(cacheHit)
+            cacheHits.increment();
+        finishedImages.increment();
+        changed.set(true);
+    }
+
+    /**
+     * Publishes that every image of the batch has been finished.
+     */
+    public void batchFinished() {
+        finishTime = System.nanoTime();
+        changed.set(true);
+    }
+
+    /**
+     * Returns if anything has been published since the last call, and
+     * clears the flag.
+     * @return True if the progress has changed.
+     */
+    public boolean clearChanged() {
+        return changed.getAndSet(false);
+    }
+
+    /**
+     * Returns if every image of the batch has been finished.
+     * @return True if the batch has finished.
+     */
+    public boolean isFinished() {
+        return finishTime >= 0;
+    }
+
+    /**
+     * Returns if the whole input folder has been walked.
+     * @return True if the discovery has finished.
+     */
+    public boolean isDiscoveryFinished() {
+        return discoveryFinished;
+    }
+
+    /**
+     * Returns the number of images found so far.
+     * @return Number of images discovered.
+     */
+    public int getDiscoveredImages() {
+        return discoveredImages.intValue();
+    }
+
+    /**
+     * Returns the number of images already scaled (or skipped).
+     * @return Number of images finished.
+     */
+    public int getFinishedImages() {
+        return finishedImages.intValue();
+    }
+
+    /**
+     * Returns the number of images skipped because they were up to date.
+     * @return Number of cache hits.
+     */
+    public int getCacheHits() {
+        return cacheHits.intValue();
+    }
+
+    /**
+     * Returns the number of levels written so far.
+     * @return Number of levels done.
+     */
+    public long getLevelsDone() {
+        return levelsDone.sum();
+    }
+
+    /**
+     * Returns the number of levels of the images discovered so far,
+     * without the ones of the cache hits.
+     * @return Number of levels to write.
+     */
+    public long getTotalLevels() {
+        return (long) (getDiscoveredImages() - getCacheHits()) * levelsPerImage;
+    }
+
+    /**
+     * Returns the bytes of source images read so far.
+     * @return Number of bytes read.
+     */
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * Returns the bytes of level files written so far.
+     * @return Number of bytes written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Returns the seconds since the batch started, or until it finished.
+     * @return Elapsed seconds.
+     */
+    public double getElapsedSeconds() {
+        long endTime = isFinished() ? finishTime : System.nanoTime();
+        return (endTime - startTime) / 1e9;
+    }
+
+    /**
+     * Returns the images finished per second.
+     * @return Images per second.
+     */
+    public double getImagesPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? getFinishedImages() / seconds : 0;
+    }
+
+    /**
+     * Returns the megabytes of source images read per second.
+     * @return Megabytes read per second.
+     */
+    public double getMegabytesReadPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? getBytesRead() / 1e6 / seconds : 0;
+    }
+
+    /**
+     * Returns the megabytes of level files written per second.
+     * @return Megabytes written per second.
+     */
+    public double getMegabytesWrittenPerSecond() {
+        double seconds = getElapsedSeconds();
+        return seconds > 0 ? getBytesWritten() / 1e6 / seconds : 0;
+    }
+
+    /**
+     * Estimates the seconds left from the levels per second so far. While
+     * the folder is still being walked, it only counts the images found.
+     * @return Seconds left, or -1 if nothing has been written yet.
+     */
+    public double getEstimatedSecondsLeft() {
+        long done = getLevelsDone();
+
+        if(isFinished())
+            return 0;
+
+        if(done == 0)
+            return -1;
+
+        return Math.max(0, getTotalLevels() - done) * getElapsedSeconds() / done;
+    }
+}
@@ -0,0 +1,187 @@
+package imagescalerfx.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reader of a pyramid container: a single file with all the scaled levels
+ * of an image, instead of a folder with a file for each one. The index is
+ * read when the container is opened; the file is mapped in memory the
+ * first time a level is read, and each level is returned as a view of the
+ * mapped bytes, without copying them. The container must be closed once
+ * it is not needed.<br/>
+ * The file starts with a fixed header, followed by the encoded levels:
+ * <pre>
+ *   magic "ISPY", version (int), number of levels (int)
+ *   for each level: name (16 ASCII bytes), offset (long), length (long)
+ * </pre>
+ * The name of a level is the name of its LevelSpec, padded with zeros.
+ * Specs that resolve to the same size share their bytes: their entries
+ * have the same offset and length.
+ * All the numbers are big endian. It is written by PyramidContainerWriter.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class PyramidContainer implements Closeable {
+    static final int MAGIC = 0x49535059;
+    static final int VERSION = 2;
+    static final int HEADER_BYTES = 12;
+    static final int NAME_BYTES = 16;
+    static final int ENTRY_BYTES = NAME_BYTES + 16;
+
+    /**
+     * Extension of the container files.
+     */
+    public static final String EXTENSION = ".pyramid";
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private String[] names;
+    private long[] offsets;
+    private long[] lengths;
+
+    private PyramidContainer(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+
+        ByteBuffer header = read(0, HEADER_BYTES, size);
+        if(header == null || header.getInt(0) != MAGIC)
+            throw new IOException("Not a pyramid container");
+
+        int version = header.getInt(4);
+        if(version != VERSION)
+            throw new IOException("Unsupported pyramid container version " + version);
+
+        int count = header.getInt(8);
+        ByteBuffer index = count < 0 ? null : read(HEADER_BYTES, (long) count * ENTRY_BYTES, size);
+        if(index == null)
+            throw new IOException("Corrupted pyramid container index");
+
+        names = new String[count];
+        offsets = new long[count];
+        lengths = new long[count];
+        for(int i = 0; i < count; i++) {
+            int entry = i * ENTRY_BYTES;
+            names[i] = readName(index, entry);
+            offsets[i] = index.getLong(entry + NAME_BYTES);
+            lengths[i] = index.getLong(entry + NAME_BYTES + 8);
+
+            if(offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > size)
+                throw new IOException("Corrupted pyramid container index");
+        }
+    }
+
+    /**
+     * Opens a container file and reads its index.
+     * @param path Container file.
+     * @return Reader of the container, to be closed.
+     * @throws IOException If the file could not be read or is not a container.
+     */
+    public static PyramidContainer open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            return new PyramidContainer(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the container file of the scaled instances of an image: the
+     * folder where they would be stored, with the container extension.
+     * @param folderPath Folder for the scaled instances.
+     * @return Container file.
+     */
+    public static Path getPath(Path folderPath) {
+        return folderPath.resolveSibling(folderPath.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Returns the names of the levels stored, in the order they were
+     * written.
+     * @return Names of the levels (see LevelSpec.getName).
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * Returns if the container has every one of the given levels.
+     * @param levels Level specs.
+     * @return True if all the levels are stored.
+     */
+    public boolean containsAll(List<LevelSpec> levels) {
+        return levels.stream().allMatch(level -> indexOf(level.getName()) >= 0);
+    }
+
+    /**
+     * Returns the encoded file of a level, as a read-only view of the
+     * mapped container (the bytes are not copied). The view stays valid
+     * once the container is closed.
+     * @param name Name of the level (see LevelSpec.getName).
+     * @return Contents of the level file, or null if it is not stored.
+     * @throws IOException If the container could not be mapped.
+     */
+    public synchronized ByteBuffer getLevel(String name) throws IOException {
+        int index = indexOf(name);
+
+        if(index < 0)
+            return null;
+
+        if(buffer == null)
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+        ByteBuffer level = buffer.duplicate();
+        level.position((int) offsets[index]);
+        level.limit((int) (offsets[index] + lengths[index]));
+        return level.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Closes the file of the container.
+     * @throws IOException If the file could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer = null;
+        channel.close();
+    }
+
+    private int indexOf(String name) {
+        return Arrays.asList(names).indexOf(name);
+    }
+
+    private ByteBuffer read(long position, long length, long size) throws IOException {
+        if(position + length > size || length > Integer.MAX_VALUE)
+            return null;
+
+        ByteBuffer bytes = ByteBuffer.allocate((int) length);
+        while(bytes.hasRemaining())
+            if(channel.read(bytes, position + bytes.position()) < 0)
+                return null;
+
+        return bytes;
+    }
+
+    private static String readName(ByteBuffer index, int entry) {
+        byte[] name = new byte[NAME_BYTES];
+        index.get(entry, name);
+
+        int length = 0;
+        while(length < NAME_BYTES && name[length] != 0)
+            length++;
+
+        return new String(name, 0, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,128 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Writer of a pyramid container (see PyramidContainer). The space of the
+ * index is reserved at the start of the file, the levels are appended
+ * after it with a FileChannel as they are encoded, and the index is filled
+ * when the writer is closed. The file is written next to the container and
+ * moved into place on close, so readers never see it half written.<br/>
+ * Levels can be added from several threads at once.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class PyramidContainerWriter {
+    private Path path;
+    private Path temporaryPath;
+    private FileChannel channel;
+    private String[] names;
+    private long[] offsets;
+    private long[] lengths;
+    private int count;
+
+    /**
+     * Creates a container with room for the given number of levels.
+     * @param path Container file.
+     * @param maxLevels Maximum number of levels.
+     * @throws IOException If the file could not be created.
+     */
+    public PyramidContainerWriter(Path path, int maxLevels) throws IOException {
+        this.path = path.toAbsolutePath();
+        temporaryPath = IOUtils.getTemporaryPath(this.path);
+        channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                                   StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        names = new String[maxLevels];
+        offsets = new long[maxLevels];
+        lengths = new long[maxLevels];
+        channel.position(PyramidContainer.HEADER_BYTES
+                         + (long) maxLevels * PyramidContainer.ENTRY_BYTES);
+    }
+
+    /**
+     * Appends the encoded file of a level once, with an entry in the index
+     * for each of its names.
+     * @param levelNames Names of the specs of the level (see
+     *                   LevelSpec.getName).
+     * @param bytes Contents of the level file.
+     * @throws IOException If the level could not be written, there is no
+     *                     room left in the index or a name is too long.
+     */
+    public synchronized void write(List<String> levelNames, byte[] bytes) throws IOException {
+        if(count + levelNames.size() > names.length)
+            throw new IOException("The pyramid container index is full");
+
+        for(String name : levelNames)
+            if(name.length() > PyramidContainer.NAME_BYTES)
+                throw new IOException("Level name too long for a pyramid container: " + name);
+
+        long offset = channel.position();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while(buffer.hasRemaining())
+            channel.write(buffer);
+
+        for(String name : levelNames) {
+            names[count] = name;
+            offsets[count] = offset;
+            lengths[count] = bytes.length;
+            count++;
+        }
+    }
+
+    /**
+     * Fills the index, closes the file and moves it into place.
+     * @throws IOException If the container could not be finished.
+     */
+    public synchronized void close() throws IOException {
+        if(channel == null)
+            return;
+
+        ByteBuffer header = ByteBuffer.allocate(PyramidContainer.HEADER_BYTES
+                                                + names.length * PyramidContainer.ENTRY_BYTES);
+        header.putInt(PyramidContainer.MAGIC)
+              .putInt(PyramidContainer.VERSION)
+              .putInt(count);
+        for(int i = 0; i < count; i++) {
+            byte[] name = names[i].getBytes(StandardCharsets.US_ASCII);
+            header.put(name)
+                  .put(new byte[PyramidContainer.NAME_BYTES - name.length])
+                  .putLong(offsets[i])
+                  .putLong(lengths[i]);
+        }
+        header.rewind();
+
+        try {
+            long position = 0;
+            while(header.hasRemaining())
+                position += channel.write(header, position);
+        } finally {
+            channel.close();
+            channel = null;
+        }
+
+        IOUtils.move(temporaryPath, path);
+    }
+
+    /**
+     * Closes the file and deletes it, without replacing the container.
+     */
+    public synchronized void abort() {
+        try {
+            if(channel != null)
+                channel.close();
+            channel = null;
+            Files.deleteIfExists(temporaryPath);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
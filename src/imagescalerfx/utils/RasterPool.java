@@ -0,0 +1,280 @@
+package imagescalerfx.utils;
+
+import java.awt.image.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of the pixel arrays of the scaled images and of the scratch buffers
+ * of the scaler, so a batch reuses the same large arrays instead of
+ * allocating (and collecting) new ones for every level of every image.
+ * <br/>
+ * Arrays are kept in buckets of sizes that grow by a factor of sqrt(2), so
+ * an array is reused for any image up to 41% smaller. Released arrays are
+ * dropped when the pool already holds its memory cap. All the operations
+ * are lock-free and can be called from any thread.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class RasterPool {
+    // smaller arrays are cheap to allocate and are never pooled
+    private static final int MIN_POOLED_LENGTH = 4096;
+
+    private static final RasterPool shared = new RasterPool(Runtime.getRuntime().maxMemory() / 8);
+
+    private Map<Integer, ConcurrentLinkedDeque<Object>> buckets;
+    private Map<Integer, BufferedImage> templates;
+    private volatile long capacity;
+    private AtomicLong pooledBytes;
+    private LongAdder hits;
+    private LongAdder misses;
+    private LongAdder dropped;
+
+    /**
+     * Initialize an empty pool.
+     * @param capacity Maximum bytes kept in the pool (0 disables it).
+     */
+    public RasterPool(long capacity) {
+        this.capacity = capacity;
+        buckets = new ConcurrentHashMap<>();
+        templates = new ConcurrentHashMap<>();
+        pooledBytes = new AtomicLong();
+        hits = new LongAdder();
+        misses = new LongAdder();
+        dropped = new LongAdder();
+    }
+
+    /**
+     * Returns the pool shared by the scaler.
+     * @return Shared pool.
+     */
+    public static RasterPool getShared() {
+        return shared;
+    }
+
+    /**
+     * Set the maximum bytes kept in the pool. If it is smaller than what
+     * the pool holds, the extra arrays are dropped as they are taken.
+     * @param capacity Maximum bytes kept in the pool (0 disables it).
+     */
+    public void setCapacity(long capacity) {
+        this.capacity = Math.max(0, capacity);
+        if(this.capacity == 0)
+            clear();
+    }
+
+    /**
+     * Drops every array of the pool.
+     */
+    public void clear() {
+        buckets.clear();
+        pooledBytes.set(0);
+    }
+
+    /**
+     * Creates an image of the given size and type, backed by a pooled array
+     * if the type is backed by a single int[] or byte[] (such as
+     * TYPE_INT_RGB, TYPE_INT_ARGB or TYPE_3BYTE_BGR). The pixels are not
+     * cleared, so the image must be completely overwritten.
+     * @param width Width of the image.
+     * @param height Height of the image.
+     * @param type Type of the image (BufferedImage.TYPE_*).
+     * @return New image.
+     */
+    public BufferedImage createImage(int width, int height, int type) {
+        BufferedImage template = templates.computeIfAbsent(type, t -> new BufferedImage(1, 1, t));
+        ColorModel colorModel = template.getColorModel();
+        SampleModel sampleModel =
+                template.getSampleModel().createCompatibleSampleModel(width, height);
+
+        if(colorModel instanceof IndexColorModel)
+            return new BufferedImage(width, height, type);
+
+        int length;
+        if(sampleModel instanceof SinglePixelPackedSampleModel)
+            length = ((SinglePixelPackedSampleModel) sampleModel).getScanlineStride() * height;
+
+        else if(sampleModel instanceof PixelInterleavedSampleModel)
+            length = ((PixelInterleavedSampleModel) sampleModel).getScanlineStride() * height;
+
+        else
+            return new BufferedImage(width, height, type);
+
+        DataBuffer dataBuffer;
+        switch (sampleModel.getDataType()) {
+            case DataBuffer.TYPE_INT:
+                dataBuffer = new DataBufferInt(acquireInts(length), length);
+                break;
+            case DataBuffer.TYPE_BYTE:
+                dataBuffer = new DataBufferByte(acquireBytes(length), length);
+                break;
+            default:
+                return new BufferedImage(width, height, type);
+        }
+
+        WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, null);
+        return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Gives back the pixel array of an image that is no longer used. The
+     * image (and any subimage of it) must not be used after this call.
+     * @param image Image to release, or null.
+     */
+    public void release(BufferedImage image) {
+        if(image == null)
+            return;
+
+        DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+        if(dataBuffer.getNumBanks() != 1)
+            return;
+
+        if(dataBuffer instanceof DataBufferInt)
+            releaseInts(((DataBufferInt) dataBuffer).getData());
+
+        else if(dataBuffer instanceof DataBufferByte)
+            releaseBytes(((DataBufferByte) dataBuffer).getData());
+    }
+
+    /**
+     * Returns an int array with at least the given length. Its contents
+     * are not cleared.
+     * @param length Minimum length.
+     * @return Pooled or new array.
+     */
+    public int[] acquireInts(int length) {
+        int[] array = (int[]) acquire(DataBuffer.TYPE_INT, length);
+        return array != null ? array : new int[allocationLength(length)];
+    }
+
+    /**
+     * Gives back an int array that is no longer used.
+     * @param array Array to release.
+     */
+    public void releaseInts(int[] array) {
+        release(DataBuffer.TYPE_INT, array, array.length, 4L * array.length);
+    }
+
+    /**
+     * Returns a byte array with at least the given length. Its contents
+     * are not cleared.
+     * @param length Minimum length.
+     * @return Pooled or new array.
+     */
+    public byte[] acquireBytes(int length) {
+        byte[] array = (byte[]) acquire(DataBuffer.TYPE_BYTE, length);
+        return array != null ? array : new byte[allocationLength(length)];
+    }
+
+    /**
+     * Gives back a byte array that is no longer used.
+     * @param array Array to release.
+     */
+    public void releaseBytes(byte[] array) {
+        release(DataBuffer.TYPE_BYTE, array, array.length, array.length);
+    }
+
+    /**
+     * Returns the bytes currently kept in the pool.
+     * @return Pooled bytes.
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Returns how many arrays have been reused from the pool.
+     * @return Number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns how many arrays had to be allocated.
+     * @return Number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns how many released arrays were dropped because of the cap.
+     * @return Number of arrays dropped.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private Object acquire(int dataType, int length) {
+        if(length < MIN_POOLED_LENGTH || capacity == 0)
+            return null;
+
+        ConcurrentLinkedDeque<Object> bucket = buckets.get(key(dataType, ceilBucket(length)));
+        Object array = bucket == null ? null : bucket.pollFirst();
+
+        if(array == null) {
+            misses.increment();
+            return null;
+        }
+
+        pooledBytes.addAndGet(-bytes(array));
+        hits.increment();
+        return array;
+    }
+
+    private void release(int dataType, Object array, int length, long bytes) {
+        if(length < MIN_POOLED_LENGTH)
+            return;
+
+        // reserve the space first, so concurrent releases never exceed the cap
+        if(pooledBytes.addAndGet(bytes) > capacity) {
+            pooledBytes.addAndGet(-bytes);
+            dropped.increment();
+            return;
+        }
+
+        buckets.computeIfAbsent(key(dataType, floorBucket(length)),
+                                k -> new ConcurrentLinkedDeque<>())
+               .offerFirst(array);
+    }
+
+    private static int allocationLength(int length) {
+        if(length < MIN_POOLED_LENGTH)
+            return length;
+
+        // round up to the bucket, so the array can be reused by any image of it
+        long bucketLength = bucketLength(ceilBucket(length));
+        return bucketLength > Integer.MAX_VALUE - 8 ? length : (int) bucketLength;
+    }
+
+    private static int ceilBucket(int length) {
+        int bucket = Math.max(0, (int) Math.ceil(2 * Math.log(length) / Math.log(2)) - 1);
+        while(bucketLength(bucket) < length)
+            bucket++;
+        return bucket;
+    }
+
+    private static int floorBucket(int length) {
+        int bucket = (int) Math.floor(2 * Math.log(length) / Math.log(2)) + 1;
+        while(bucketLength(bucket) > length)
+            bucket--;
+        return bucket;
+    }
+
+    private static long bucketLength(int bucket) {
+        return (long) Math.ceil(Math.pow(2, bucket / 2.0));
+    }
+
+    private static int key(int dataType, int bucket) {
+        return dataType << 8 | bucket;
+    }
+
+    private static long bytes(Object array) {
+        return array instanceof int[] ? 4L * ((int[]) array).length : ((byte[]) array).length;
+    }
+}
@@ -0,0 +1,83 @@
+package imagescalerfx.utils;
+
+/**
+ * Separable filters used by the Resampler to weight the source pixels.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum ResampleFilter {
+    /**
+     * Average of the pixels covered by the destination pixel.
+     */
+    BOX("Box", 0.5),
+    /**
+     * Linear interpolation (triangle filter).
+     */
+    BILINEAR("Bilinear", 1.0),
+    /**
+     * Cubic convolution with a = -0.5 (Catmull-Rom).
+     */
+    BICUBIC("Bicubic", 2.0),
+    /**
+     * Windowed sinc with three lobes.
+     */
+    LANCZOS("Lanczos", 3.0);
+
+    private String description;
+    private double radius;
+
+    ResampleFilter(String description, double radius) {
+        this.description = description;
+        this.radius = radius;
+    }
+
+    /**
+     * Returns the distance from the center at which the filter becomes zero.
+     * @return Radius of the filter.
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    /**
+     * Returns the weight of a sample at a given distance from the center.
+     * @param x Distance from the center, in source pixels.
+     * @return Weight of the sample (not normalized).
+     */
+    public double weight(double x) {
+        x = Math.abs(x);
+
+        switch (this) {
+            case BOX:
+                return x <= 0.5 ? 1.0 : 0.0;
+
+            case BILINEAR:
+                return x < 1.0 ? 1.0 - x : 0.0;
+
+            case BICUBIC:
+                if(x < 1.0)
+                    return (1.5 * x - 2.5) * x * x + 1.0;
+                if(x < 2.0)
+                    return ((-0.5 * x + 2.5) * x - 4.0) * x + 2.0;
+                return 0.0;
+
+            default:
+                if(x < 1e-8)
+                    return 1.0;
+                if(x >= radius)
+                    return 0.0;
+                double pix = Math.PI * x;
+                return radius * Math.sin(pix) * Math.sin(pix / radius) / (pix * pix);
+        }
+    }
+
+    /**
+     * Return the filter description (for the choice boxes).
+     * @return Filter description.
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,181 @@
+package imagescalerfx.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only file with the timings of every batch, so runs with different
+ * settings, machines or versions can be compared later (see RunRecord).
+ * Each line is a record with tab-separated fields:
+ * <ul>
+ *     <li>image: run, path, cache hit and milliseconds of an image.</li>
+ *     <li>sample: run, image (position in the run), phase, level and
+ *     nanoseconds of a measurement (see PhaseTimings).</li>
+ *     <li>run: id, start time, makespan, threads, mode, engine, filter,
+ *     order, settings key, Java version, JVM, OS, host, processors, max
+ *     heap, images, cache hits and input folder.</li>
+ * </ul>
+ * The run line is appended after the lines of its images, and all of
+ * them at once, so a run interrupted while it is written is ignored.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class RunHistory {
+    private Path historyPath;
+
+    /**
+     * Initialize a history stored in the given file.
+     * @param historyPath History file, created with the first run.
+     */
+    public RunHistory(Path historyPath) {
+        this.historyPath = historyPath;
+    }
+
+    /**
+     * Returns the history shared by the main view and the command line,
+     * in the home folder of the user.
+     * @return Default history file.
+     */
+    public static Path getDefaultPath() {
+        return Path.of(System.getProperty("user.home"), ".imagescalerfx", "history");
+    }
+
+    /**
+     * Appends a finished batch to the history.
+     * @param scalers Scalers of the batch, with their timings.
+     * @param settings Options used to scale the images.
+     * @param inputRoot Folder with the images.
+     * @param startMillis Time when the batch started (epoch milliseconds).
+     * @param makespanMillis Time the batch took.
+     * @throws IOException If the history could not be written.
+     */
+    public void record(List<ThreadScaler> scalers, ScaleSettings settings, Path inputRoot,
+                       long startMillis, long makespanMillis) throws IOException {
+        String runId = startMillis + "-" + ProcessHandle.current().pid();
+        StringBuilder lines = new StringBuilder();
+        int images = 0;
+        int cacheHits = 0;
+
+        List<ThreadScaler> finishedScalers = new ArrayList<>();
+        synchronized (scalers) {
+            for(ThreadScaler scaler : scalers)
+                if(scaler.isFinished())
+                    finishedScalers.add(scaler);
+        }
+
+        for(ThreadScaler scaler : finishedScalers) {
+            appendLine(lines, "image", runId, scaler.getImage().getPath(),
+                       scaler.isCacheHit(), scaler.getRequiredMilliseconds());
+
+            for(PhaseTimings.Sample sample : scaler.getTimings().getSamples())
+                appendLine(lines, "sample", runId, images, sample.getPhase().name(),
+                           sample.getLevel(), sample.getNanos());
+
+            images++;
+            if(scaler.isCacheHit())
+                cacheHits++;
+        }
+
+        appendLine(lines, "run", runId, startMillis, makespanMillis,
+                   settings.getThreads(),
+                   settings.getExecutionMode().name(),
+                   settings.getScalingEngine().name(),
+                   settings.getResampleFilter().name(),
+                   settings.getJobOrder().name(),
+                   settings.getOutputKey(),
+                   System.getProperty("java.version"),
+                   System.getProperty("java.vm.name"),
+                   System.getProperty("os.name") + " " + System.getProperty("os.arch"),
+                   getHostName(),
+                   Runtime.getRuntime().availableProcessors(),
+                   Runtime.getRuntime().maxMemory(),
+                   images, cacheHits,
+                   inputRoot.toAbsolutePath().normalize());
+
+        if(historyPath.getParent() != null)
+            Files.createDirectories(historyPath.getParent());
+        Files.writeString(historyPath, lines, StandardCharsets.UTF_8,
+                          StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads every complete run of the history, from the oldest to the
+     * newest.
+     * @return Recorded runs, empty if there is no history yet.
+     */
+    public List<RunRecord> load() {
+        List<RunRecord> runs = new ArrayList<>();
+        Map<String, RunRecord> pendingRuns = new HashMap<>();
+
+        if(!Files.exists(historyPath))
+            return runs;
+
+        try (BufferedReader reader = Files.newBufferedReader(historyPath, StandardCharsets.UTF_8)) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+
+                try {
+                    if(fields[0].equals("image") && fields.length == 5)
+                        pendingRuns.computeIfAbsent(fields[1], RunRecord::new)
+                                   .addImage(Boolean.parseBoolean(fields[3]),
+                                             Long.parseLong(fields[4]));
+
+                    else if(fields[0].equals("sample") && fields.length == 6)
+                        pendingRuns.computeIfAbsent(fields[1], RunRecord::new)
+                                   .addSample(PipelineStage.valueOf(fields[3]),
+                                              Long.parseLong(fields[5]));
+
+                    else if(fields[0].equals("run") && fields.length == 19) {
+                        RunRecord run = pendingRuns.remove(fields[1]);
+                        if(run == null)
+                            run = new RunRecord(fields[1]);
+
+                        run.setRun(Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                                   Integer.parseInt(fields[4]), fields[5], fields[6], fields[7],
+                                   fields[8], fields[9], fields[10] + " " + fields[11],
+                                   fields[12], fields[13], fields[18]);
+                        runs.add(run);
+                    }
+                } catch (IllegalArgumentException e) {
+                    // a line of a newer or damaged history: it is skipped
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return runs;
+    }
+
+    private static void appendLine(StringBuilder lines, Object... fields) {
+        for(int i = 0; i < fields.length; i++) {
+            if(i > 0)
+                lines.append('\t');
+
+            lines.append(fields[i].toString().replace('\t', ' ')
+                                  .replace('\n', ' ')
+                                  .replace('\r', ' '));
+        }
+
+        lines.append('\n');
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+}
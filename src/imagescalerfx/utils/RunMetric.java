@@ -0,0 +1,70 @@
+package imagescalerfx.utils;
+
+/**
+ * Figures used to compare the runs of a RunHistory.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum RunMetric {
+    /**
+     * Time the whole batch took, in seconds.
+     */
+    MAKESPAN("Makespan (s)", false),
+    /**
+     * 95th percentile of the time of the images scaled, in milliseconds.
+     */
+    IMAGE_P95("p95 image time (ms)", false),
+    /**
+     * Images finished per second.
+     */
+    IMAGES_PER_SECOND("Images/s", true);
+
+    private String description;
+    private boolean higherIsBetter;
+
+    RunMetric(String description, boolean higherIsBetter) {
+        this.description = description;
+        this.higherIsBetter = higherIsBetter;
+    }
+
+    /**
+     * Returns the value of this metric for a run.
+     * @param run Recorded run.
+     * @return Value of the metric.
+     */
+    public double getValue(RunRecord run) {
+        switch (this) {
+            case MAKESPAN: return run.getMakespanMillis() / 1000.0;
+            case IMAGE_P95: return run.getImagePercentile(0.95);
+            default: return run.getImagesPerSecond();
+        }
+    }
+
+    /**
+     * Returns the relative change of this metric from a run to another,
+     * positive when the second run is better.
+     * @param baseline Run compared against.
+     * @param run Run compared.
+     * @return Improvement, as a fraction of the baseline (0.1 is 10 %
+     *         better), or NaN if the baseline is 0.
+     */
+    public double getImprovement(RunRecord baseline, RunRecord run) {
+        double before = getValue(baseline);
+        double after = getValue(run);
+
+        if(before == 0)
+            return Double.NaN;
+
+        return (higherIsBetter ? after - before : before - after) / before;
+    }
+
+    /**
+     * Return the metric description (for the choice boxes).
+     * @return Metric description.
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
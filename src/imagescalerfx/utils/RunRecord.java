@@ -0,0 +1,208 @@
+package imagescalerfx.utils;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Batch read from a RunHistory: its settings, the machine and Java runtime
+ * that ran it, and the distributions of its image and phase times.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class RunRecord {
+    private String id;
+    private long startMillis;
+    private long makespanMillis;
+    private int threads;
+    private String mode;
+    private String engine;
+    private String filter;
+    private String order;
+    private String settingsKey;
+    private String jvm;
+    private String os;
+    private String host;
+    private String inputRoot;
+    private int images;
+    private int cacheHits;
+    private PhaseHistogram imageTimes;
+    private Map<PipelineStage, PhaseHistogram> phaseTimes;
+
+    RunRecord(String id) {
+        this.id = id;
+        imageTimes = new PhaseHistogram();
+        phaseTimes = new EnumMap<>(PipelineStage.class);
+        for(PipelineStage phase : PipelineStage.values())
+            phaseTimes.put(phase, new PhaseHistogram());
+    }
+
+    void addImage(boolean cacheHit, long milliseconds) {
+        images++;
+
+        if(cacheHit)
+            cacheHits++;
+        else
+            imageTimes.add(milliseconds * 1_000_000);
+    }
+
+    void addSample(PipelineStage phase, long nanos) {
+        phaseTimes.get(phase).add(nanos);
+    }
+
+    void setRun(long startMillis, long makespanMillis, int threads, String mode, String engine,
+                String filter, String order, String settingsKey, String jvm, String os,
+                String host, String inputRoot) {
+        this.startMillis = startMillis;
+        this.makespanMillis = makespanMillis;
+        this.threads = threads;
+        this.mode = mode;
+        this.engine = engine;
+        this.filter = filter;
+        this.order = order;
+        this.settingsKey = settingsKey;
+        this.jvm = jvm;
+        this.os = os;
+        this.host = host;
+        this.inputRoot = inputRoot;
+    }
+
+    /**
+     * Returns the identifier of the run in the history.
+     * @return Run id.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns when the run started.
+     * @return Epoch milliseconds.
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Returns how long the whole batch took.
+     * @return Milliseconds of the run.
+     */
+    public long getMakespanMillis() {
+        return makespanMillis;
+    }
+
+    /**
+     * Returns the number of worker threads.
+     * @return Threads of the run.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Returns the execution mode, the scaling engine, the filter and the
+     * job order of the run.
+     * @return Short description of the settings.
+     */
+    public String getSettingsDescription() {
+        return mode + " " + engine + " " + filter + " " + order;
+    }
+
+    /**
+     * Returns the options that determine the output of the run (see
+     * ScaleSettings.getOutputKey).
+     * @return Settings key.
+     */
+    public String getSettingsKey() {
+        return settingsKey;
+    }
+
+    /**
+     * Returns the Java version and JVM of the run.
+     * @return Java runtime.
+     */
+    public String getJvm() {
+        return jvm;
+    }
+
+    /**
+     * Returns the operating system and architecture of the run.
+     * @return Operating system.
+     */
+    public String getOs() {
+        return os;
+    }
+
+    /**
+     * Returns the machine of the run.
+     * @return Host name.
+     */
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * Returns the folder scaled by the run.
+     * @return Input folder.
+     */
+    public String getInputRoot() {
+        return inputRoot;
+    }
+
+    /**
+     * Returns the number of images of the run, including cache hits.
+     * @return Number of images.
+     */
+    public int getImages() {
+        return images;
+    }
+
+    /**
+     * Returns the number of images skipped because they were up to date.
+     * @return Number of cache hits.
+     */
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the images finished per second.
+     * @return Throughput of the run.
+     */
+    public double getImagesPerSecond() {
+        return makespanMillis > 0 ? images * 1000.0 / makespanMillis : 0;
+    }
+
+    /**
+     * Returns a percentile of the time of the images that were scaled
+     * (cache hits are not included).
+     * @param percentile Fraction of the images, from 0 to 1.
+     * @return Milliseconds of the percentile.
+     */
+    public double getImagePercentile(double percentile) {
+        return imageTimes.getPercentile(percentile) / 1e6;
+    }
+
+    /**
+     * Returns a percentile of the durations of a phase, over every image
+     * and level.
+     * @param phase Phase of the scaling.
+     * @param percentile Fraction of the durations, from 0 to 1.
+     * @return Milliseconds of the percentile.
+     */
+    public double getPhasePercentile(PipelineStage phase, double percentile) {
+        return phaseTimes.get(phase).getPercentile(percentile) / 1e6;
+    }
+
+    /**
+     * Returns the start time, threads and settings of the run.
+     * @return Description of the run.
+     */
+    @Override
+    public String toString() {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(startMillis))
+               + " " + threads + "t " + getSettingsDescription();
+    }
+}
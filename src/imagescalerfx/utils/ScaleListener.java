@@ -0,0 +1,17 @@
+package imagescalerfx.utils;
+
+/**
+ * Listener notified by a ThreadScaler each time it finishes an image.
+ * It is called from the worker thread that scaled the image.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public interface ScaleListener {
+    /**
+     * Called when the scales of an image have finished (or it has been
+     * skipped as a cache hit).
+     * @param scaler Thread that scaled the image.
+     */
+    void imageScaled(ThreadScaler scaler);
+}
@@ -0,0 +1,280 @@
+package imagescalerfx.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class that remembers, for every image scaled into a folder, the size,
+ * modification time and content hash of the source and the settings used
+ * for its scaled instances, so images that have not changed can be
+ * skipped.<br/>
+ * The manifest is an append-only file in the folder that holds the
+ * subfolders (or containers) of the scaled instances, so two output
+ * folders never share it: each line records one image, and the last line
+ * of an image wins. Without an output folder the scaled instances are
+ * written next to the images, and so is the manifest (a FolderWatcher
+ * ignores it, since it is not an image).<br/>
+ * The manifests loaded are cached, up to CACHED_MANIFESTS folders. Each
+ * time one is returned, the lines appended to its file since it was read
+ * (by other processes, see ShardWorker) are read too, and it is read again
+ * if the file has been replaced or deleted.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ScaleManifest {
+    /**
+     * Name of the manifest file inside each output folder.
+     */
+    public static final String FILE_NAME = ".imagescalerfx-manifest";
+
+    /**
+     * Number of the most recently used manifests kept in memory.
+     */
+    public static final int CACHED_MANIFESTS = 64;
+
+    private static final Map<Path, ScaleManifest> manifests =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Path, ScaleManifest> eldest) {
+                    return size() > CACHED_MANIFESTS;
+                }
+            };
+
+    private Path manifestPath;
+    private Map<String, Entry> entries;
+    private int lines;
+    private Object fileKey;
+    private long loadedBytes;
+
+    private ScaleManifest(Path folderPath) {
+        manifestPath = folderPath.resolve(FILE_NAME);
+        entries = new HashMap<>();
+    }
+
+    /**
+     * Returns the manifest of a folder, loading it the first time and
+     * reading the changes of its file since then.
+     * @param folderPath Folder that contains the subfolders (or containers)
+     *                   of the scaled instances.
+     * @return Manifest of the folder.
+     */
+    public static ScaleManifest of(Path folderPath) {
+        ScaleManifest manifest;
+
+        synchronized (manifests) {
+            manifest = manifests.computeIfAbsent(folderPath.toAbsolutePath().normalize(),
+                                                 ScaleManifest::new);
+        }
+
+        manifest.refresh();
+        return manifest;
+    }
+
+    /**
+     * Returns if the scaled instances of an image were produced from the
+     * same source and with the same settings. The source is only read (to
+     * hash it) if its size is the same but its modification time changed.
+     * @param imagePath Source image.
+     * @param settingsKey Settings used for the scaled instances.
+     * @return True if the image does not need to be scaled again.
+     */
+    public synchronized boolean isUpToDate(Path imagePath, String settingsKey) {
+        Entry entry = entries.get(imagePath.getFileName().toString());
+
+        if(entry == null || !entry.settingsKey.equals(settingsKey))
+            return false;
+
+        try {
+            BasicFileAttributes attributes =
+                    Files.readAttributes(imagePath, BasicFileAttributes.class);
+
+            if(attributes.size() != entry.size)
+                return false;
+
+            if(attributes.lastModifiedTime().toMillis() == entry.modified)
+                return true;
+
+            // touched but maybe not changed: compare the contents
+            if(IOUtils.hash(imagePath).equals(entry.hash)) {
+                append(new Entry(imagePath.getFileName().toString(), entry.size,
+                                 attributes.lastModifiedTime().toMillis(),
+                                 entry.hash, settingsKey));
+                return true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Records that the scaled instances of an image have been produced
+     * with the given settings, from the source as it was when it was read.
+     * The attributes must be read before the contents, so if the source
+     * changes while it is scaled the next run does not take it as up to
+     * date.
+     * @param imagePath Source image.
+     * @param attributes Attributes of the source, read before its contents.
+     * @param hash Hash of the contents that were scaled (see IOUtils.hash).
+     * @param settingsKey Settings used for the scaled instances.
+     */
+    public synchronized void record(Path imagePath, BasicFileAttributes attributes,
+                                    String hash, String settingsKey) {
+        try {
+            append(new Entry(imagePath.getFileName().toString(), attributes.size(),
+                             attributes.lastModifiedTime().toMillis(), hash, settingsKey));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private synchronized void refresh() {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(manifestPath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            // deleted (or never written)
+            attributes = null;
+        }
+
+        // the creation time identifies the file where there are no file keys
+        Object currentKey = attributes == null ? null :
+                attributes.fileKey() != null ? attributes.fileKey() : attributes.creationTime();
+        long size = attributes == null ? 0 : attributes.size();
+
+        // replaced, truncated or deleted: read again from the start
+        if(currentKey == null || !currentKey.equals(fileKey) || size < loadedBytes) {
+            entries.clear();
+            lines = 0;
+            loadedBytes = 0;
+            fileKey = currentKey;
+        }
+
+        if(size > loadedBytes)
+            load(size);
+    }
+
+    private void load(long size) {
+        byte[] bytes;
+
+        try (FileChannel channel = FileChannel.open(manifestPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - loadedBytes));
+            while(buffer.hasRemaining())
+                if(channel.read(buffer, loadedBytes + buffer.position()) < 0)
+                    break;
+            bytes = Arrays.copyOf(buffer.array(), buffer.position());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        // a line still being appended by another process is read next time
+        int end = bytes.length;
+        while(end > 0 && bytes[end - 1] != '\n')
+            end--;
+
+        for(String line : new String(bytes, 0, end, StandardCharsets.UTF_8).split("\\r?\\n")) {
+            if(line.isEmpty())
+                continue;
+
+            Entry entry = Entry.parse(line);
+            if(entry != null)
+                entries.put(entry.fileName, entry);
+            lines++;
+        }
+        loadedBytes += end;
+
+        // too many old lines: write only the last one of each image
+        if(lines > entries.size() * 2 + 16)
+            compact();
+    }
+
+    private void compact() {
+        // other processes may be reading or appending to the manifest (see
+        // ShardWorker): it is replaced at once, and a line appended meanwhile
+        // is lost, which only makes that image be scaled again
+        Path temporaryPath = IOUtils.getTemporaryPath(manifestPath);
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+                for(Entry entry : entries.values()) {
+                    writer.write(entry.toString());
+                    writer.newLine();
+                }
+            }
+
+            IOUtils.move(temporaryPath, manifestPath);
+            lines = entries.size();
+        } catch (IOException e) {
+            e.printStackTrace();
+
+            try {
+                Files.deleteIfExists(temporaryPath);
+            } catch (IOException deleteException) {
+                deleteException.printStackTrace();
+            }
+        }
+    }
+
+    private void append(Entry entry) throws IOException {
+        entries.put(entry.fileName, entry);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(manifestPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(entry.toString());
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Line of the manifest: file name, size, modification time (ms),
+     * content hash and settings, separated by tabs.
+     */
+    private static class Entry {
+        private String fileName;
+        private long size;
+        private long modified;
+        private String hash;
+        private String settingsKey;
+
+        Entry(String fileName, long size, long modified, String hash, String settingsKey) {
+            this.fileName = fileName;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.settingsKey = settingsKey;
+        }
+
+        static Entry parse(String line) {
+            String[] fields = line.split("\t");
+
+            if(fields.length != 5)
+                return null;
+
+            try {
+                return new Entry(fields[0], Long.parseLong(fields[1]),
+                                 Long.parseLong(fields[2]), fields[3], fields[4]);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return fileName + "\t" + size + "\t" + modified + "\t" + hash + "\t" + settingsKey;
+        }
+    }
+}
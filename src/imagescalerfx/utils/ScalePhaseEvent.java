@@ -0,0 +1,33 @@
+package imagescalerfx.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one phase of the scaling of an image (or of one
+ * of its levels), so the phases can be inspected in JDK Mission Control
+ * next to the GC and I/O events.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+@Name("imagescalerfx.ScalePhase")
+@Label("Scale Phase")
+@Category("ImageScalerFX")
+@Description("One phase of the scaling of an image")
+@StackTrace(false)
+public class ScalePhaseEvent extends Event {
+    @Label("Image")
+    String image;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Level")
+    @Description("Name of the level, or 0 if the phase is for the whole image")
+    String level;
+}
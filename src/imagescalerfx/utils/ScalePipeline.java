@@ -0,0 +1,413 @@
+package imagescalerfx.utils;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Class that scales the images in stages: read the bytes of the source,
+ * decode them, resample each level, encode it and write it. Each stage has
+ * its own pool of threads (see ScaleSettings.getStageThreads) and takes its
+ * jobs from a bounded queue filled by the previous one, so the disk and the
+ * processors work at the same time and a slow stage stops the rest instead
+ * of filling the memory. In VIRTUAL_IO mode the read and write stages run
+ * each job in a new virtual thread (see IOExecutors), with a semaphore
+ * that bounds how many of them wait for the disk at once. The decode stage waits until each
+ * image fits in the memory budget, which it keeps until its last level is
+ * written.<br/>
+ * The images are taken from the discovery queue, and each ThreadScaler is
+ * only used for its first and last phases (see prepare and finish).
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ScalePipeline {
+    private static final ImageJob END_OF_IMAGE_JOBS = new ImageJob(null);
+    private static final LevelJob END_OF_LEVEL_JOBS = new LevelJob(null, null);
+
+    private ScaleSettings settings;
+    private BlockingQueue<ImageData> images;
+    private BlockingQueue<ImageJob> decodeQueue;
+    private BlockingQueue<LevelJob> resampleQueue;
+    private BlockingQueue<LevelJob> encodeQueue;
+    private BlockingQueue<LevelJob> writeQueue;
+    private Map<PipelineStage, ExecutorService> executors;
+    private Function<ImageData, ThreadScaler> scalerFactory;
+    private Consumer<ThreadScaler> finishedListener;
+    private Runnable terminationListener;
+    private MemoryBudget memoryBudget;
+    private volatile boolean stopped;
+
+    /**
+     * Initialize a pipeline from the options used to scale the images and
+     * the queue where the images are discovered.
+     * @param settings Options with the threads of each stage and the
+     *                 capacity of the queues between them.
+     * @param images Queue of discovered images, ended by ImageDiscovery.END_OF_IMAGES.
+     * @param scalerFactory Creates the scaler of each image taken from the queue.
+     * @param finishedListener Notified each time an image is finished (or skipped).
+     * @param terminationListener Notified once, when the last stage finishes.
+     * @param memoryBudget Budget that admits each image before it is decoded.
+     */
+    public ScalePipeline(ScaleSettings settings, BlockingQueue<ImageData> images,
+                         Function<ImageData, ThreadScaler> scalerFactory,
+                         Consumer<ThreadScaler> finishedListener,
+                         Runnable terminationListener, MemoryBudget memoryBudget) {
+        this.settings = settings;
+        this.images = images;
+        this.scalerFactory = scalerFactory;
+        this.finishedListener = finishedListener;
+        this.terminationListener = terminationListener;
+        this.memoryBudget = memoryBudget;
+
+        decodeQueue = new ArrayBlockingQueue<>(settings.getStageQueueCapacity());
+        resampleQueue = new ArrayBlockingQueue<>(settings.getStageQueueCapacity());
+        encodeQueue = new ArrayBlockingQueue<>(settings.getStageQueueCapacity());
+        writeQueue = new ArrayBlockingQueue<>(settings.getStageQueueCapacity());
+        executors = new EnumMap<>(PipelineStage.class);
+    }
+
+    /**
+     * Starts the threads of every stage. Each stage finishes when the
+     * previous one has finished and its queue is empty.
+     */
+    public void start() {
+        startStage(PipelineStage.WRITE, writeQueue, END_OF_LEVEL_JOBS,
+                   this::write, this::levelDone, terminationListener::run);
+        startStage(PipelineStage.ENCODE, encodeQueue, END_OF_LEVEL_JOBS,
+                   this::encode, this::levelDone, () -> writeQueue.put(END_OF_LEVEL_JOBS));
+        startStage(PipelineStage.RESAMPLE, resampleQueue, END_OF_LEVEL_JOBS,
+                   this::resample, this::levelDone, () -> encodeQueue.put(END_OF_LEVEL_JOBS));
+        startStage(PipelineStage.DECODE, decodeQueue, END_OF_IMAGE_JOBS,
+                   this::decode, this::imageDone,
+                   () -> resampleQueue.put(END_OF_LEVEL_JOBS));
+        startStage(PipelineStage.READ, images, ImageDiscovery.END_OF_IMAGES,
+                   this::read, null, () -> decodeQueue.put(END_OF_IMAGE_JOBS));
+    }
+
+    /**
+     * Stops reading images: the rest of the images of the queue are
+     * skipped, and the stages finish once the images already read are
+     * written.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Waits until every stage has finished.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public void awaitTermination() throws InterruptedException {
+        for(ExecutorService executor : executors.values())
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /**
+     * Returns if every stage has finished.
+     * @return True if the pipeline has finished.
+     */
+    public boolean isTerminated() {
+        return executors.values().stream().allMatch(ExecutorService::isTerminated);
+    }
+
+    /**
+     * Returns how many jobs are waiting in front of each stage. A stage
+     * with a full queue is slower than the previous ones.
+     * @return Number of jobs waiting, by stage.
+     */
+    public Map<PipelineStage, Integer> getQueueDepths() {
+        Map<PipelineStage, Integer> depths = new EnumMap<>(PipelineStage.class);
+        depths.put(PipelineStage.READ, images.size());
+        depths.put(PipelineStage.DECODE, decodeQueue.size());
+        depths.put(PipelineStage.RESAMPLE, resampleQueue.size());
+        depths.put(PipelineStage.ENCODE, encodeQueue.size());
+        depths.put(PipelineStage.WRITE, writeQueue.size());
+        return depths;
+    }
+
+    private void read(ImageData image) throws InterruptedException {
+        if(stopped)
+            return;
+
+        ThreadScaler scaler = scalerFactory.apply(image);
+        ImageJob job = new ImageJob(scaler);
+
+        try {
+            if(!scaler.prepare()) {
+                scaler.whenFinished(() -> finishedListener.accept(scaler));
+                return;
+            }
+
+            job.size = scaler.readDimensions();
+
+            // very large images are read in strips by the decode stage
+            if(!settings.isStreamed(job.size)) {
+                job.bytes = scaler.readSource();
+
+                if(job.bytes == null) {
+                    finish(scaler);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            // like a failed decode, so the copies of the image do not wait for it
+            finish(scaler);
+            throw e;
+        }
+
+        decodeQueue.put(job);
+    }
+
+    private void decode(ImageJob job) throws InterruptedException {
+        if(settings.getLevels().isEmpty()) {
+            finish(job.scaler);
+            return;
+        }
+
+        long admittedBytes = MemoryBudget.estimateBytes(job.size, settings);
+        memoryBudget.acquire(admittedBytes);
+        job.admittedBytes = admittedBytes;
+
+        if(job.bytes == null) {
+            job.plan = job.scaler.planLevels(job.size);
+            List<BufferedImage> scaledImages = job.scaler.scaleStreaming(job.plan);
+            if(scaledImages == null) {
+                imageDone(job);
+                return;
+            }
+
+            job.pendingLevels.set(scaledImages.size());
+            for(int i = 0; i < scaledImages.size(); i++) {
+                LevelJob level = new LevelJob(job, job.plan.getLevels().get(i));
+                level.scaledImage = scaledImages.get(i);
+                encodeQueue.put(level);
+            }
+            return;
+        }
+
+        job.pyramid = job.scaler.decodeSource(job.bytes, job.size == null ?
+                1 : job.scaler.planLevels(job.size).getLargestScale());
+        job.bytes = null;
+
+        if(job.pyramid == null) {
+            imageDone(job);
+            return;
+        }
+
+        // in the order of the plan, so the parents are resampled first
+        job.plan = job.scaler.planLevels(
+                new Dimension(job.pyramid.getWidth(), job.pyramid.getHeight()));
+        job.pendingLevels.set(job.plan.getLevels().size());
+        for(LevelPlan.Level level : job.plan.getLevels())
+            resampleQueue.put(new LevelJob(job, level));
+    }
+
+    private void resample(LevelJob level) throws InterruptedException {
+        level.scaledImage = level.image.scaler.resampleLevel(level.image.pyramid, level.level);
+        encodeQueue.put(level);
+    }
+
+    private void encode(LevelJob level) throws InterruptedException {
+        level.bytes = level.image.scaler.encodeLevel(level.scaledImage, level.level);
+
+        if(level.image.pyramid != null)
+            level.image.pyramid.release(level.scaledImage);
+        else
+            RasterPool.getShared().release(level.scaledImage);
+        level.scaledImage = null;
+
+        if(level.bytes == null)
+            levelDone(level);
+
+        else
+            writeQueue.put(level);
+    }
+
+    private void write(LevelJob level) {
+        level.image.scaler.writeLevel(level.bytes, level.level);
+        levelDone(level);
+    }
+
+    private void levelDone(LevelJob level) {
+        if(level.image.pendingLevels.decrementAndGet() == 0) {
+            if(level.image.pyramid != null)
+                level.image.pyramid.release();
+            level.image.pyramid = null;
+            imageDone(level.image);
+        }
+    }
+
+    private void imageDone(ImageJob job) {
+        if(job.admittedBytes >= 0)
+            memoryBudget.release(job.admittedBytes);
+        job.admittedBytes = -1;
+
+        finish(job.scaler);
+    }
+
+    private void finish(ThreadScaler scaler) {
+        scaler.finish();
+        finishedListener.accept(scaler);
+    }
+
+    private <T> void startStage(PipelineStage stage, BlockingQueue<T> queue, T end,
+                                Step<T> step, Consumer<T> failed, StageEnd whenFinished) {
+        int threads = settings.getStageThreads(stage);
+        AtomicInteger runningThreads = new AtomicInteger(threads);
+        AtomicInteger threadNumber = new AtomicInteger();
+
+        String name = "pipeline-" + stage.name().toLowerCase();
+
+        if(stage.isIO() && settings.getExecutionMode() == ExecutionMode.VIRTUAL_IO) {
+            ExecutorService executor = IOExecutors.newExecutor(name);
+            executors.put(stage, executor);
+            executor.execute(() -> dispatch(executor, threads, queue, end,
+                                            step, failed, whenFinished));
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable ->
+                new Thread(runnable, name + "-" + threadNumber.incrementAndGet()));
+        executors.put(stage, executor);
+
+        for(int i = 0; i < threads; i++)
+            executor.execute(() -> {
+                T job = null;
+
+                try {
+                    try {
+                        while((job = queue.take()) != end)
+                            runStep(step, failed, job);
+                    } finally {
+                        // leave the mark for the rest of the threads of the
+                        // stage, and pass it on after the last one even if
+                        // it ends with an error
+                        if(job == end)
+                            queue.put(end);
+
+                        if(runningThreads.decrementAndGet() == 0 && whenFinished != null)
+                            whenFinished.run();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+        executor.shutdown();
+    }
+
+    private <T> void dispatch(ExecutorService executor, int maxRunning,
+                              BlockingQueue<T> queue, T end, Step<T> step,
+                              Consumer<T> failed, StageEnd whenFinished) {
+        Semaphore running = new Semaphore(maxRunning);
+        T job = null;
+
+        try {
+            try {
+                while((job = queue.take()) != end) {
+                    running.acquire();
+
+                    T runningJob = job;
+                    executor.execute(() -> {
+                        try {
+                            runStep(step, failed, runningJob);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        } finally {
+                            running.release();
+                        }
+                    });
+                }
+            } finally {
+                // the stage finishes when the last job does, even if the
+                // dispatcher ends with an error
+                running.acquire(maxRunning);
+                if(job == end)
+                    queue.put(end);
+
+                if(whenFinished != null)
+                    whenFinished.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        executor.shutdown();
+    }
+
+    private static <T> void runStep(Step<T> step, Consumer<T> failed, T job)
+            throws InterruptedException {
+        try {
+            step.run(job);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            // a raster too large for the heap only fails its image, whose
+            // memory is released with it, so the thread keeps working
+            e.printStackTrace();
+            if(failed != null)
+                failed.accept(job);
+        }
+    }
+
+    /**
+     * Work of a stage for one job. It can wait while the queue of the next
+     * stage is full.
+     */
+    private interface Step<T> {
+        void run(T job) throws InterruptedException;
+    }
+
+    /**
+     * Passes the end mark to the next stage once every thread of a stage
+     * has finished.
+     */
+    private interface StageEnd {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Image that goes through the read and decode stages.
+     */
+    private static class ImageJob {
+        private ThreadScaler scaler;
+        private Dimension size;
+        private ByteBuffer bytes;
+        private volatile LevelPlan plan;
+        private volatile ImagePyramid pyramid;
+        private AtomicInteger pendingLevels;
+        private volatile long admittedBytes;
+
+        ImageJob(ThreadScaler scaler) {
+            this.scaler = scaler;
+            pendingLevels = new AtomicInteger();
+            admittedBytes = -1;
+        }
+    }
+
+    /**
+     * Level of an image that goes through the resample, encode and write stages.
+     */
+    private static class LevelJob {
+        private ImageJob image;
+        private LevelPlan.Level level;
+        private BufferedImage scaledImage;
+        private byte[] bytes;
+
+        LevelJob(ImageJob image, LevelPlan.Level level) {
+            this.image = image;
+            this.level = level;
+        }
+    }
+}
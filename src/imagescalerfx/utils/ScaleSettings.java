@@ -0,0 +1,595 @@
+package imagescalerfx.utils;
+
+import java.awt.Dimension;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Class in charge of storing the options used to scale the images.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ScaleSettings {
+    private boolean deriveFromLargerLevel;
+    private ExecutionMode executionMode;
+    private ScalingEngine scalingEngine;
+    private ResampleFilter resampleFilter;
+    private long streamingThresholdPixels;
+    private long streamingStripPixels;
+    private boolean decodeSubsampling;
+    private double subsamplingTolerance;
+    private boolean incremental;
+    private List<LevelSpec> levels;
+    private int threads;
+    private Path outputRoot;
+    private boolean recursive;
+    private int discoveryQueueCapacity;
+    private Map<PipelineStage, Integer> stageThreads;
+    private int stageQueueCapacity;
+    private long rasterPoolBytes;
+    private int ioThreads;
+    private long ioLatencyMillis;
+    private float jpegQuality;
+    private boolean progressive;
+    private int pngCompressionLevel;
+    private long memoryBudgetBytes;
+    private JobOrder jobOrder;
+    private OutputFormat outputFormat;
+    private boolean mappedSources;
+    private boolean deduplicateSources;
+
+    /**
+     * Initialize the settings with their default values.
+     */
+    public ScaleSettings() {
+        deriveFromLargerLevel = false;
+        executionMode = ExecutionMode.FIXED_POOL;
+        scalingEngine = ScalingEngine.JAVA2D;
+        resampleFilter = ResampleFilter.BICUBIC;
+        streamingThresholdPixels = 50_000_000;
+        streamingStripPixels = 16 * 1024 * 1024;
+        decodeSubsampling = true;
+        subsamplingTolerance = 2.0;
+        incremental = false;
+        levels = LevelSpec.percents(90, 80, 70, 60, 50, 40, 30, 20, 10);
+        threads = Runtime.getRuntime().availableProcessors();
+        outputRoot = null;
+        recursive = true;
+        discoveryQueueCapacity = 256;
+        stageThreads = new EnumMap<>(PipelineStage.class);
+        stageQueueCapacity = 16;
+        rasterPoolBytes = Runtime.getRuntime().maxMemory() / 8;
+        ioThreads = 64;
+        ioLatencyMillis = 0;
+        jpegQuality = 0.75f;
+        progressive = false;
+        pngCompressionLevel = -1;
+        memoryBudgetBytes = Runtime.getRuntime().maxMemory() / 2;
+        jobOrder = JobOrder.DISCOVERY;
+        outputFormat = OutputFormat.FOLDER;
+        mappedSources = true;
+        deduplicateSources = false;
+    }
+
+    /**
+     * Returns if each level is scaled from the nearest larger level
+     * already computed instead of from the original image (by default,
+     * it is not: with nearest-neighbour scaling the aliasing compounds).
+     * @return True if smaller levels are derived from larger ones.
+     */
+    public boolean isDeriveFromLargerLevel() {
+        return deriveFromLargerLevel;
+    }
+
+    /**
+     * Set if each level is scaled from the nearest larger level
+     * already computed instead of from the original image.
+     * @param deriveFromLargerLevel True to derive smaller levels from larger ones.
+     */
+    public void setDeriveFromLargerLevel(boolean deriveFromLargerLevel) {
+        this.deriveFromLargerLevel = deriveFromLargerLevel;
+    }
+
+    /**
+     * Returns the way the scaling threads are run.
+     * @return Execution mode.
+     */
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Set the way the scaling threads are run.
+     * @param executionMode Execution mode.
+     */
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Returns the implementation used to scale the images.
+     * @return Scaling engine.
+     */
+    public ScalingEngine getScalingEngine() {
+        return scalingEngine;
+    }
+
+    /**
+     * Set the implementation used to scale the images.
+     * @param scalingEngine Scaling engine.
+     */
+    public void setScalingEngine(ScalingEngine scalingEngine) {
+        this.scalingEngine = scalingEngine;
+    }
+
+    /**
+     * Returns the filter used by the Resampler engine.
+     * @return Resample filter.
+     */
+    public ResampleFilter getResampleFilter() {
+        return resampleFilter;
+    }
+
+    /**
+     * Set the filter used by the Resampler engine.
+     * @param resampleFilter Resample filter.
+     */
+    public void setResampleFilter(ResampleFilter resampleFilter) {
+        this.resampleFilter = resampleFilter;
+    }
+
+    /**
+     * Returns the number of pixels above which an image is read in strips
+     * instead of being decoded completely.
+     * @return Pixel count that enables the streaming mode.
+     */
+    public long getStreamingThresholdPixels() {
+        return streamingThresholdPixels;
+    }
+
+    /**
+     * Set the number of pixels above which an image is read in strips
+     * instead of being decoded completely.
+     * @param streamingThresholdPixels Pixel count that enables the streaming mode.
+     */
+    public void setStreamingThresholdPixels(long streamingThresholdPixels) {
+        this.streamingThresholdPixels = streamingThresholdPixels;
+    }
+
+    /**
+     * Returns the approximate number of source pixels read in each strip
+     * by the streaming mode.
+     * @return Pixels per strip.
+     */
+    public long getStreamingStripPixels() {
+        return streamingStripPixels;
+    }
+
+    /**
+     * Set the approximate number of source pixels read in each strip
+     * by the streaming mode. Smaller strips use less memory, but some
+     * formats (such as JPEG) decode again the rows before each strip.
+     * @param streamingStripPixels Pixels per strip.
+     */
+    public void setStreamingStripPixels(long streamingStripPixels) {
+        this.streamingStripPixels = streamingStripPixels;
+    }
+
+    /**
+     * Returns if images only needed at small sizes are decoded skipping
+     * source pixels.
+     * @return True if decode-time subsampling is enabled.
+     */
+    public boolean isDecodeSubsampling() {
+        return decodeSubsampling;
+    }
+
+    /**
+     * Set if images only needed at small sizes are decoded skipping
+     * source pixels.
+     * @param decodeSubsampling True to enable decode-time subsampling.
+     */
+    public void setDecodeSubsampling(boolean decodeSubsampling) {
+        this.decodeSubsampling = decodeSubsampling;
+    }
+
+    /**
+     * Returns how many times larger than the target the subsampled image
+     * must be, in each dimension (see SubsamplingPolicy).
+     * @return Quality tolerance of the subsampling.
+     */
+    public double getSubsamplingTolerance() {
+        return subsamplingTolerance;
+    }
+
+    /**
+     * Set how many times larger than the target the subsampled image
+     * must be, in each dimension (see SubsamplingPolicy).
+     * @param subsamplingTolerance Quality tolerance of the subsampling.
+     */
+    public void setSubsamplingTolerance(double subsamplingTolerance) {
+        this.subsamplingTolerance = subsamplingTolerance;
+    }
+
+    /**
+     * Returns if images whose source and settings have not changed since
+     * the last scale are skipped (see ScaleManifest).
+     * @return True if the incremental mode is enabled.
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * Set if images whose source and settings have not changed since
+     * the last scale are skipped (see ScaleManifest).
+     * @param incremental True to enable the incremental mode.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Returns the levels to which each image is scaled (by default, from
+     * 90% to 10% of the original size). Each image produces them in the
+     * order of its LevelPlan.
+     * @return Level specs.
+     */
+    public List<LevelSpec> getLevels() {
+        return Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * Set the levels to which each image is scaled: percentages, fixed
+     * widths or boxes (see LevelSpec). Repeated levels are ignored.
+     * @param levels Level specs.
+     */
+    public void setLevels(List<LevelSpec> levels) {
+        this.levels = levels.stream()
+                            .distinct()
+                            .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of worker threads used to scale the images.
+     * @return Number of threads.
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Set the number of worker threads used to scale the images.
+     * @param threads Number of threads.
+     */
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Returns the folder where the scaled instances are stored, keeping the
+     * structure of the input folder, or null to store them next to each image.
+     * @return Output folder, or null.
+     */
+    public Path getOutputRoot() {
+        return outputRoot;
+    }
+
+    /**
+     * Set the folder where the scaled instances are stored, keeping the
+     * structure of the input folder, or null to store them next to each image.
+     * @param outputRoot Output folder, or null.
+     */
+    public void setOutputRoot(Path outputRoot) {
+        this.outputRoot = outputRoot;
+    }
+
+    /**
+     * Returns if the images of the subfolders are scaled too.
+     * @return True if the input folder is walked recursively.
+     */
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    /**
+     * Set if the images of the subfolders are scaled too.
+     * @param recursive True to walk the input folder recursively.
+     */
+    public void setRecursive(boolean recursive) {
+        this.recursive = recursive;
+    }
+
+    /**
+     * Returns how many discovered images can wait to be scaled. The
+     * discovery stops while the queue is full.
+     * @return Capacity of the queue between discovery and scaling.
+     */
+    public int getDiscoveryQueueCapacity() {
+        return discoveryQueueCapacity;
+    }
+
+    /**
+     * Set how many discovered images can wait to be scaled. The
+     * discovery stops while the queue is full.
+     * @param discoveryQueueCapacity Capacity of the queue between discovery and scaling.
+     */
+    public void setDiscoveryQueueCapacity(int discoveryQueueCapacity) {
+        this.discoveryQueueCapacity = Math.max(1, discoveryQueueCapacity);
+    }
+
+    /**
+     * Returns the number of threads of a stage of the pipeline. Unless it
+     * has been set, I/O stages use 2 threads (or, in VIRTUAL_IO mode, a
+     * virtual thread for each job, up to the I/O threads at once) and the
+     * rest as many as the worker threads.
+     * @param stage Stage of the pipeline.
+     * @return Number of threads of the stage.
+     */
+    public int getStageThreads(PipelineStage stage) {
+        if(!stage.isIO())
+            return stageThreads.getOrDefault(stage, threads);
+
+        return stageThreads.getOrDefault(stage,
+                executionMode == ExecutionMode.VIRTUAL_IO ? ioThreads : 2);
+    }
+
+    /**
+     * Set the number of threads of a stage of the pipeline.
+     * @param stage Stage of the pipeline.
+     * @param threads Number of threads of the stage.
+     */
+    public void setStageThreads(PipelineStage stage, int threads) {
+        stageThreads.put(stage, Math.max(1, threads));
+    }
+
+    /**
+     * Returns how many jobs can wait in front of each stage of the
+     * pipeline. The previous stage stops while the queue is full.
+     * @return Capacity of the queues between stages.
+     */
+    public int getStageQueueCapacity() {
+        return stageQueueCapacity;
+    }
+
+    /**
+     * Set how many jobs can wait in front of each stage of the pipeline.
+     * @param stageQueueCapacity Capacity of the queues between stages.
+     */
+    public void setStageQueueCapacity(int stageQueueCapacity) {
+        this.stageQueueCapacity = Math.max(1, stageQueueCapacity);
+    }
+
+    /**
+     * Returns the maximum memory kept in the raster pool to reuse the
+     * pixel arrays of the scaled images (see RasterPool).
+     * @return Bytes of the pool (0 if it is disabled).
+     */
+    public long getRasterPoolBytes() {
+        return rasterPoolBytes;
+    }
+
+    /**
+     * Set the maximum memory kept in the raster pool to reuse the pixel
+     * arrays of the scaled images (by default, an eighth of the heap).
+     * @param rasterPoolBytes Bytes of the pool (0 disables it).
+     */
+    public void setRasterPoolBytes(long rasterPoolBytes) {
+        this.rasterPoolBytes = Math.max(0, rasterPoolBytes);
+    }
+
+    /**
+     * Returns how many reads and how many writes can wait for the disk at
+     * once in VIRTUAL_IO mode.
+     * @return Number of jobs of each I/O stage running at once.
+     */
+    public int getIoThreads() {
+        return ioThreads;
+    }
+
+    /**
+     * Set how many reads and how many writes can wait for the disk at once
+     * in VIRTUAL_IO mode.
+     * @param ioThreads Number of jobs of each I/O stage running at once.
+     */
+    public void setIoThreads(int ioThreads) {
+        this.ioThreads = Math.max(1, ioThreads);
+    }
+
+    /**
+     * Returns the delay added to every read of a source and every write of
+     * a level, to simulate a slow or network disk.
+     * @return Milliseconds added to each file operation (0 by default).
+     */
+    public long getIoLatencyMillis() {
+        return ioLatencyMillis;
+    }
+
+    /**
+     * Set the delay added to every read of a source and every write of a
+     * level, to compare the execution modes as if the disk were slow.
+     * @param ioLatencyMillis Milliseconds added to each file operation.
+     */
+    public void setIoLatencyMillis(long ioLatencyMillis) {
+        this.ioLatencyMillis = Math.max(0, ioLatencyMillis);
+    }
+
+    /**
+     * Returns the quality of the JPEG levels, from 0 (smallest files) to
+     * 1 (best quality).
+     * @return JPEG quality (0.75 by default, like ImageIO).
+     */
+    public float getJpegQuality() {
+        return jpegQuality;
+    }
+
+    /**
+     * Set the quality of the JPEG levels, from 0 (smallest files) to
+     * 1 (best quality).
+     * @param jpegQuality JPEG quality.
+     */
+    public void setJpegQuality(float jpegQuality) {
+        this.jpegQuality = Math.max(0, Math.min(1, jpegQuality));
+    }
+
+    /**
+     * Returns if the JPEG levels are encoded as progressive JPEG.
+     * @return True if the JPEG levels are progressive.
+     */
+    public boolean isProgressive() {
+        return progressive;
+    }
+
+    /**
+     * Set if the JPEG levels are encoded as progressive JPEG, which are
+     * usually smaller and show sooner in browsers, but slower to encode.
+     * @param progressive True to encode progressive JPEG.
+     */
+    public void setProgressive(boolean progressive) {
+        this.progressive = progressive;
+    }
+
+    /**
+     * Returns the deflate level of the PNG levels, from 0 (fastest) to 9
+     * (smallest files).
+     * @return PNG compression level, or -1 for the default of ImageIO.
+     */
+    public int getPngCompressionLevel() {
+        return pngCompressionLevel;
+    }
+
+    /**
+     * Set the deflate level of the PNG levels, from 0 (fastest) to 9
+     * (smallest files).
+     * @param pngCompressionLevel PNG compression level, or -1 for the
+     *                            default of ImageIO.
+     */
+    public void setPngCompressionLevel(int pngCompressionLevel) {
+        this.pngCompressionLevel = Math.max(-1, Math.min(9, pngCompressionLevel));
+    }
+
+    /**
+     * Returns the maximum estimated memory of the images scaled at once
+     * (see MemoryBudget).
+     * @return Bytes of the budget (0 if the admission control is disabled).
+     */
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    /**
+     * Set the maximum estimated memory of the images scaled at once (by
+     * default, half of the heap). Images wait to be decoded while it would
+     * be exceeded.
+     * @param memoryBudgetBytes Bytes of the budget (0 disables the
+     *                          admission control).
+     */
+    public void setMemoryBudgetBytes(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = Math.max(0, memoryBudgetBytes);
+    }
+
+    /**
+     * Returns the order in which the discovered images are scaled.
+     * @return Order of the images.
+     */
+    public JobOrder getJobOrder() {
+        return jobOrder;
+    }
+
+    /**
+     * Set the order in which the discovered images are scaled.
+     * @param jobOrder Order of the images.
+     */
+    public void setJobOrder(JobOrder jobOrder) {
+        this.jobOrder = jobOrder;
+    }
+
+    /**
+     * Returns how the scaled instances of each image are stored.
+     * @return Output format.
+     */
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+
+    /**
+     * Set how the scaled instances of each image are stored.
+     * @param outputFormat Output format.
+     */
+    public void setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * Returns if the source images are mapped in memory instead of being
+     * read into the heap.
+     * @return True if the sources are mapped.
+     */
+    public boolean isMappedSources() {
+        return mappedSources;
+    }
+
+    /**
+     * Set if the source images are mapped in memory (FileChannel.map), so
+     * the header, the decoder and the hash read the same pages of the
+     * system cache without copying them to the heap.
+     * @param mappedSources True to map the sources.
+     */
+    public void setMappedSources(boolean mappedSources) {
+        this.mappedSources = mappedSources;
+    }
+
+    /**
+     * Returns if byte-identical images of a batch are scaled only once (by
+     * default, they are not: every source would be hashed to find them).
+     * @return True if the sources are deduplicated.
+     */
+    public boolean isDeduplicateSources() {
+        return deduplicateSources;
+    }
+
+    /**
+     * Set if byte-identical images of a batch are scaled only once, and
+     * the scaled instances of the copies are hard links to (or copies of)
+     * the ones of the first image (see SourceDeduplicator).
+     * @param deduplicateSources True to deduplicate the sources.
+     */
+    public void setDeduplicateSources(boolean deduplicateSources) {
+        this.deduplicateSources = deduplicateSources;
+    }
+
+    /**
+     * Returns if an image of the given size is read in strips instead of
+     * being decoded completely.
+     * @param size Size of the image, or null if it is unknown.
+     * @return True if the image is larger than the streaming threshold.
+     */
+    public boolean isStreamed(Dimension size) {
+        return size != null && (long) size.width * size.height > streamingThresholdPixels;
+    }
+
+    /**
+     * Returns a text that identifies the settings that change the pixels or
+     * the files of the scaled instances, so they can be compared between
+     * runs.
+     * @return Key of the output settings.
+     */
+    public String getOutputKey() {
+        return scalingEngine.name()
+                + "," + resampleFilter.name()
+                + "," + deriveFromLargerLevel
+                + "," + streamingThresholdPixels
+                + "," + decodeSubsampling
+                + "," + subsamplingTolerance
+                + "," + levels.toString().replace(" ", "")
+                + "," + jpegQuality
+                + "," + progressive
+                + "," + pngCompressionLevel
+                + "," + outputFormat.name();
+    }
+}
@@ -0,0 +1,33 @@
+package imagescalerfx.utils;
+
+/**
+ * Implementations available to scale an image.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public enum ScalingEngine {
+    /**
+     * Graphics2D.drawImage without rendering hints (nearest neighbour).
+     */
+    JAVA2D("Java2D"),
+    /**
+     * Separable resampling over the int[] raster with a selectable filter.
+     */
+    RESAMPLER("Resampler");
+
+    private String description;
+
+    ScalingEngine(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Return the engine description (for the choice boxes).
+     * @return Engine description.
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
@@ -0,0 +1,437 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Coordinator of several worker processes that scale the same input folder.
+ * The images are split in shards, and each worker claims a shard with a
+ * lease, scales it and marks it as done. Everything is stored as small
+ * files in a journal directory shared by the workers, so no server or
+ * database is needed:
+ * <ul>
+ *     <li>plan: number of shards and images, creation time, input folder
+ *     and settings, written once by the first worker.</li>
+ *     <li>shard-NNNNN: paths of the images of a shard, one per line.</li>
+ *     <li>shard-NNNNN.G.lease: lease of generation G on a shard, with the
+ *     worker that holds it and the images it has finished.</li>
+ *     <li>shard-NNNNN.done: worker and totals of a finished shard.</li>
+ * </ul>
+ * A lease expires when it is not renewed (its modification time) for the
+ * lease duration, for example because its worker died. Then any worker can
+ * reclaim it by creating the next generation, which only one of them can
+ * do, since the files are created atomically. A worker that lost its lease
+ * notices it on its next renewal.<br/>
+ * The workers must run on the same machine (or share a clock), and use the
+ * same settings, which is checked against the plan.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ShardCoordinator {
+    private static final String PLAN = "plan";
+
+    private Path journal;
+    private String workerId;
+    private long leaseMillis;
+    private int planGeneration;
+    private int shards;
+    private int images;
+    private long createdMillis;
+
+    /**
+     * Initialize a coordinator for a worker.
+     * @param journal Directory shared by the workers.
+     * @param workerId Name of this worker, unique among the workers.
+     * @param leaseMillis Time after which a lease that has not been renewed
+     *                    can be reclaimed.
+     */
+    public ShardCoordinator(Path journal, String workerId, long leaseMillis) {
+        this.journal = journal;
+        this.workerId = workerId;
+        this.leaseMillis = leaseMillis;
+        planGeneration = -1;
+        shards = -1;
+    }
+
+    /**
+     * Splits the images of the input folder in shards, unless the journal
+     * has already been planned. Only one worker plans: the rest wait until
+     * the plan is written (or its lease expires, and then plan it again).
+     * The images are discovered in the order of the settings, so in
+     * LARGEST_FIRST order the first shards have the largest images.
+     * @param inputRoot Folder with the images.
+     * @param settings Options used to scale the images.
+     * @param shardSize Images of each shard.
+     * @throws IOException If the journal cannot be written or read, or it
+     *                     was planned for another folder or settings.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public void plan(Path inputRoot, ScaleSettings settings, int shardSize)
+            throws IOException, InterruptedException {
+        Files.createDirectories(journal);
+        Path planPath = journal.resolve(PLAN);
+
+        while(!Files.exists(planPath)) {
+            int generation = tryLease(PLAN, "");
+
+            if(generation < 0) {
+                Thread.sleep(getPollMillis());
+                continue;
+            }
+
+            synchronized (this) {
+                planGeneration = generation;
+            }
+
+            try {
+                writePlan(inputRoot, settings, shardSize);
+            } finally {
+                synchronized (this) {
+                    planGeneration = -1;
+                }
+            }
+        }
+
+        readPlan(inputRoot, settings);
+    }
+
+    /**
+     * Claims the first shard that is not done and has no lease, or whose
+     * lease has expired.
+     * @return Claimed shard, or null if every shard that is not done is
+     *         leased by a live worker.
+     * @throws IOException If the journal cannot be read.
+     */
+    public Shard claim() throws IOException {
+        for(int i = 0; i < shards; i++) {
+            String name = getShardName(i);
+
+            if(Files.exists(getDonePath(i)))
+                continue;
+
+            int generation = tryLease(name, workerId + "\t0");
+            if(generation >= 0) {
+                List<Path> files = Files.readAllLines(journal.resolve(name), StandardCharsets.UTF_8)
+                                        .stream()
+                                        .map(Path::of)
+                                        .collect(Collectors.toList());
+
+                return new Shard(i, generation, files);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Renews the leases held by this worker: the one on the plan while
+     * planning, and the one on the given shard.
+     * @param shard Shard being scaled, or null.
+     * @param finishedImages Images of the shard finished so far.
+     * @return False if the lease on the shard was reclaimed by another
+     *         worker.
+     */
+    public boolean renew(Shard shard, int finishedImages) {
+        synchronized (this) {
+            if(planGeneration >= 0)
+                renewLease(PLAN, planGeneration, "");
+        }
+
+        return shard == null ||
+               renewLease(getShardName(shard.index), shard.generation,
+                          workerId + "\t" + finishedImages);
+    }
+
+    /**
+     * Marks a shard as done with the totals of the batch that scaled it.
+     * If another worker (that reclaimed the shard) finished it first, its
+     * totals are kept.
+     * @param shard Scaled shard.
+     * @param batch Batch that scaled the images of the shard.
+     * @param milliseconds Time spent scaling the shard.
+     * @return True if this worker recorded the shard.
+     */
+    public boolean complete(Shard shard, BatchScaler batch, long milliseconds) {
+        ProgressTracker progress = batch.getProgress();
+        String line = workerId
+                      + "\t" + progress.getFinishedImages()
+                      + "\t" + progress.getCacheHits()
+                      + "\t" + progress.getLevelsDone()
+                      + "\t" + progress.getBytesRead()
+                      + "\t" + progress.getBytesWritten()
+                      + "\t" + milliseconds
+                      + "\t" + System.currentTimeMillis();
+
+        Path donePath = getDonePath(shard.index);
+        Path temporaryPath = IOUtils.getTemporaryPath(donePath);
+
+        try {
+            Files.writeString(temporaryPath, line, StandardCharsets.UTF_8);
+            Files.move(temporaryPath, donePath);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            try {
+                Files.deleteIfExists(temporaryPath);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Returns if every shard is done.
+     * @return True if the whole input folder has been scaled.
+     */
+    public boolean isFinished() {
+        for(int i = 0; i < shards; i++)
+            if(!Files.exists(getDonePath(i)))
+                return false;
+
+        return shards >= 0;
+    }
+
+    /**
+     * Reads the state of every shard of the journal, from all the workers.
+     * @return Aggregate progress and throughput.
+     * @throws IOException If the journal has not been planned or cannot be
+     *                     read.
+     */
+    public ShardReport getReport() throws IOException {
+        if(shards < 0)
+            readPlan(null, null);
+
+        ShardReport report = new ShardReport(shards, images);
+        long now = System.currentTimeMillis();
+        long lastFinishedMillis = createdMillis;
+
+        for(int i = 0; i < shards; i++) {
+            String name = getShardName(i);
+            int generation = getGeneration(name);
+            report.addReclaims(Math.max(0, generation));
+
+            String[] done = readFields(getDonePath(i));
+            if(done != null && done.length == 8) {
+                report.addDone(done[0], parseLong(done[1]), parseLong(done[2]),
+                               parseLong(done[3]), parseLong(done[4]),
+                               parseLong(done[5]), parseLong(done[6]));
+                lastFinishedMillis = Math.max(lastFinishedMillis, parseLong(done[7]));
+            }
+
+            else if(generation < 0)
+                report.addPending();
+
+            else {
+                Path leasePath = getLeasePath(name, generation);
+                String[] lease = readFields(leasePath);
+                long finishedImages = lease != null && lease.length == 2 ? parseLong(lease[1]) : 0;
+                report.addLeased(isExpired(leasePath, now), finishedImages);
+            }
+        }
+
+        report.setElapsedMillis((report.getDoneShards() == shards ? lastFinishedMillis : now)
+                                - createdMillis);
+        return report;
+    }
+
+    /**
+     * Returns the name of this worker.
+     * @return Worker id.
+     */
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * Returns the time to wait before looking again for a shard to claim.
+     * @return Milliseconds between polls.
+     */
+    public long getPollMillis() {
+        return Math.max(10, Math.min(1000, leaseMillis / 4));
+    }
+
+    private void writePlan(Path inputRoot, ScaleSettings settings, int shardSize)
+            throws IOException, InterruptedException {
+        LinkedBlockingQueue<ImageData> queue = new LinkedBlockingQueue<>();
+        ImageDiscovery discovery = new ImageDiscovery(
+                inputRoot, settings.getOutputRoot(), settings.isRecursive(), queue,
+                new ProgressTracker(settings.getLevels().size()));
+        discovery.setOrder(settings.getJobOrder(), settings.getLevels());
+        discovery.run();
+
+        List<String> paths = new ArrayList<>();
+        ImageData image;
+        while((image = queue.take()) != ImageDiscovery.END_OF_IMAGES)
+            paths.add(image.getPath().toAbsolutePath().normalize().toString());
+
+        int shardCount = (paths.size() + shardSize - 1) / shardSize;
+        for(int i = 0; i < shardCount; i++) {
+            List<String> shardPaths =
+                    paths.subList(i * shardSize, Math.min(paths.size(), (i + 1) * shardSize));
+            write(journal.resolve(getShardName(i)), String.join("\n", shardPaths));
+        }
+
+        // the plan is written last: once it exists, every shard exists
+        write(journal.resolve(PLAN), shardCount
+                                     + "\t" + paths.size()
+                                     + "\t" + System.currentTimeMillis()
+                                     + "\t" + inputRoot.toAbsolutePath().normalize()
+                                     + "\t" + settings.getOutputKey());
+    }
+
+    private void readPlan(Path inputRoot, ScaleSettings settings) throws IOException {
+        String[] fields = readFields(journal.resolve(PLAN));
+
+        if(fields == null || fields.length != 5)
+            throw new IOException("The journal " + journal + " has not been planned");
+
+        if(inputRoot != null &&
+                !fields[3].equals(inputRoot.toAbsolutePath().normalize().toString()))
+            throw new IOException("The journal was planned for the folder " + fields[3]);
+
+        if(settings != null && !fields[4].equals(settings.getOutputKey()))
+            throw new IOException("The journal was planned with other settings: " + fields[4]);
+
+        shards = Integer.parseInt(fields[0]);
+        images = Integer.parseInt(fields[1]);
+        createdMillis = Long.parseLong(fields[2]);
+    }
+
+    private int tryLease(String name, String content) throws IOException {
+        int generation = getGeneration(name);
+
+        if(generation >= 0 && !isExpired(getLeasePath(name, generation),
+                                         System.currentTimeMillis()))
+            return -1;
+
+        // only one worker creates the next generation
+        try {
+            Files.writeString(getLeasePath(name, generation + 1), content,
+                              StandardCharsets.UTF_8, StandardOpenOption.CREATE_NEW,
+                              StandardOpenOption.WRITE);
+            return generation + 1;
+        } catch (FileAlreadyExistsException e) {
+            return -1;
+        }
+    }
+
+    private boolean renewLease(String name, int generation, String content) {
+        if(Files.exists(getLeasePath(name, generation + 1)))
+            return false;
+
+        try {
+            // rewriting the lease also updates its modification time
+            Files.writeString(getLeasePath(name, generation), content, StandardCharsets.UTF_8);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private int getGeneration(String name) {
+        int generation = -1;
+
+        while(Files.exists(getLeasePath(name, generation + 1)))
+            generation++;
+
+        return generation;
+    }
+
+    private boolean isExpired(Path leasePath, long now) {
+        try {
+            return now - Files.getLastModifiedTime(leasePath).toMillis() > leaseMillis;
+        } catch (IOException e) {
+            // removed by hand: the shard is free
+            return true;
+        }
+    }
+
+    private Path getLeasePath(String name, int generation) {
+        return journal.resolve(name + "." + generation + ".lease");
+    }
+
+    private Path getDonePath(int index) {
+        return journal.resolve(getShardName(index) + ".done");
+    }
+
+    private String getShardName(int index) {
+        return String.format("shard-%05d", index);
+    }
+
+    private void write(Path path, String contents) throws IOException {
+        Path temporaryPath = IOUtils.getTemporaryPath(path);
+        Files.writeString(temporaryPath, contents, StandardCharsets.UTF_8);
+        IOUtils.move(temporaryPath, path);
+    }
+
+    private String[] readFields(Path path) {
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8).trim().split("\t");
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Shard claimed by a worker: its images and the generation of its
+     * lease.
+     */
+    public static class Shard {
+        private int index;
+        private int generation;
+        private List<Path> files;
+
+        Shard(int index, int generation, List<Path> files) {
+            this.index = index;
+            this.generation = generation;
+            this.files = Collections.unmodifiableList(files);
+        }
+
+        /**
+         * Returns the position of the shard in the plan.
+         * @return Index of the shard.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Returns how many times the shard has been reclaimed.
+         * @return Generation of the lease.
+         */
+        public int getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Returns the images of the shard.
+         * @return Image files.
+         */
+        public List<Path> getFiles() {
+            return files;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package imagescalerfx.utils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Aggregate progress of all the workers of a ShardCoordinator, read from
+ * its journal: how many shards are done, leased or pending, the totals of
+ * the finished shards, and the throughput of the whole run and of each
+ * worker.<br/>
+ * The images of a shard are counted when it is done, except in
+ * getFinishedImages, which also counts the images of the leased shards
+ * finished so far.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ShardReport {
+    private int shards;
+    private int images;
+    private int doneShards;
+    private int leasedShards;
+    private int expiredLeases;
+    private int pendingShards;
+    private int reclaimedLeases;
+    private long doneImages;
+    private long leasedImages;
+    private long cacheHits;
+    private long levelsDone;
+    private long bytesRead;
+    private long bytesWritten;
+    private long elapsedMillis;
+    private Map<String, Worker> workers;
+
+    ShardReport(int shards, int images) {
+        this.shards = shards;
+        this.images = images;
+        workers = new TreeMap<>();
+    }
+
+    void addDone(String workerId, long images, long cacheHits, long levels,
+                 long bytesRead, long bytesWritten, long milliseconds) {
+        doneShards++;
+        doneImages += images;
+        this.cacheHits += cacheHits;
+        levelsDone += levels;
+        this.bytesRead += bytesRead;
+        this.bytesWritten += bytesWritten;
+
+        Worker worker = workers.computeIfAbsent(workerId, Worker::new);
+        worker.shards++;
+        worker.images += images;
+        worker.milliseconds += milliseconds;
+    }
+
+    void addLeased(boolean expired, long finishedImages) {
+        if(expired)
+            expiredLeases++;
+        else
+            leasedShards++;
+
+        leasedImages += finishedImages;
+    }
+
+    void addPending() {
+        pendingShards++;
+    }
+
+    void addReclaims(int reclaims) {
+        reclaimedLeases += reclaims;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Returns the number of shards of the plan.
+     * @return Number of shards.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns the number of images of the plan.
+     * @return Number of images.
+     */
+    public int getImages() {
+        return images;
+    }
+
+    /**
+     * Returns the number of shards already scaled.
+     * @return Number of shards done.
+     */
+    public int getDoneShards() {
+        return doneShards;
+    }
+
+    /**
+     * Returns the number of shards being scaled by a live worker.
+     * @return Number of shards with a valid lease.
+     */
+    public int getLeasedShards() {
+        return leasedShards;
+    }
+
+    /**
+     * Returns the number of shards whose worker stopped renewing its lease,
+     * and that can be reclaimed.
+     * @return Number of expired leases.
+     */
+    public int getExpiredLeases() {
+        return expiredLeases;
+    }
+
+    /**
+     * Returns the number of shards never claimed.
+     * @return Number of pending shards.
+     */
+    public int getPendingShards() {
+        return pendingShards;
+    }
+
+    /**
+     * Returns how many times a shard was reclaimed from a worker whose lease
+     * expired.
+     * @return Number of reclaimed leases.
+     */
+    public int getReclaimedLeases() {
+        return reclaimedLeases;
+    }
+
+    /**
+     * Returns the images finished by all the workers, including the ones of
+     * the shards still leased.
+     * @return Number of images finished.
+     */
+    public long getFinishedImages() {
+        return doneImages + leasedImages;
+    }
+
+    /**
+     * Returns the images of the finished shards skipped because they were
+     * up to date.
+     * @return Number of cache hits.
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the levels written by the finished shards.
+     * @return Number of levels.
+     */
+    public long getLevelsDone() {
+        return levelsDone;
+    }
+
+    /**
+     * Returns the bytes read by the finished shards.
+     * @return Bytes read.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Returns the bytes written by the finished shards.
+     * @return Bytes written.
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the time since the journal was planned, or until the last
+     * shard was done if all of them are.
+     * @return Seconds of the run.
+     */
+    public double getElapsedSeconds() {
+        return elapsedMillis / 1000.0;
+    }
+
+    /**
+     * Returns the images finished per second by all the workers together.
+     * @return Aggregate throughput.
+     */
+    public double getImagesPerSecond() {
+        return elapsedMillis > 0 ? getFinishedImages() * 1000.0 / elapsedMillis : 0;
+    }
+
+    /**
+     * Returns the megabytes written per second by the finished shards.
+     * @return Aggregate write throughput.
+     */
+    public double getMegabytesWrittenPerSecond() {
+        return elapsedMillis > 0 ? bytesWritten / 1e3 / elapsedMillis : 0;
+    }
+
+    /**
+     * Returns the totals of each worker that finished a shard, by name.
+     * @return Workers of the run.
+     */
+    public Collection<Worker> getWorkers() {
+        return Collections.unmodifiableCollection(workers.values());
+    }
+
+    /**
+     * Totals of the shards finished by a worker.
+     */
+    public static class Worker {
+        private String id;
+        private int shards;
+        private long images;
+        private long milliseconds;
+
+        Worker(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Returns the name of the worker.
+         * @return Worker id.
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns the shards finished by the worker.
+         * @return Number of shards.
+         */
+        public int getShards() {
+            return shards;
+        }
+
+        /**
+         * Returns the images of the shards finished by the worker.
+         * @return Number of images.
+         */
+        public long getImages() {
+            return images;
+        }
+
+        /**
+         * Returns the time the worker spent scaling its shards.
+         * @return Milliseconds of scaling.
+         */
+        public long getMilliseconds() {
+            return milliseconds;
+        }
+
+        /**
+         * Returns the images scaled per second by the worker while it was
+         * scaling.
+         * @return Throughput of the worker.
+         */
+        public double getImagesPerSecond() {
+            return milliseconds > 0 ? images * 1000.0 / milliseconds : 0;
+        }
+    }
+}
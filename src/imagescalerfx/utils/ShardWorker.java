@@ -0,0 +1,148 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Worker process of a sharded batch. It claims the shards of a
+ * ShardCoordinator one by one and scales each of them with a new
+ * BatchScaler, so several processes (each with its own, smaller heap and
+ * garbage collector) can scale the same input folder.<br/>
+ * A background thread renews the lease of the shard being scaled. If the
+ * lease is lost (another worker reclaimed the shard), the batch of the
+ * shard is stopped and the shard is not marked as done by this worker,
+ * since both would recreate the same output folders. When no shard can be
+ * claimed, the worker waits until a lease expires or every shard is done.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class ShardWorker {
+    private ShardCoordinator coordinator;
+    private ScaleSettings settings;
+    private long leaseMillis;
+    private volatile ShardCoordinator.Shard currentShard;
+    private volatile BatchScaler currentBatch;
+    private int shards;
+    private int lostLeases;
+    private ShardCoordinator.Shard lostShard;
+
+    /**
+     * Initialize a worker.
+     * @param coordinator Coordinator of the journal shared by the workers.
+     * @param settings Options used to scale the images, the same in every
+     *                 worker.
+     * @param leaseMillis Duration of the leases; they are renewed three
+     *                    times per duration.
+     */
+    public ShardWorker(ShardCoordinator coordinator, ScaleSettings settings, long leaseMillis) {
+        this.coordinator = coordinator;
+        this.settings = settings;
+        this.leaseMillis = leaseMillis;
+    }
+
+    /**
+     * Plans the journal if no worker has done it yet, and scales shards
+     * until all of them are done.
+     * @param inputRoot Folder with the images.
+     * @param shardSize Images of each shard, if this worker plans.
+     * @param listener Listener notified each time an image is finished.
+     * @param shardListener Listener notified each time this worker finishes
+     *                      a shard.
+     * @throws IOException If the journal cannot be used.
+     * @throws InterruptedException If the wait is interrupted.
+     */
+    public void run(Path inputRoot, int shardSize, ScaleListener listener,
+                    Consumer<ShardCoordinator.Shard> shardListener)
+            throws IOException, InterruptedException {
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "shard-lease-renewal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long renewMillis = Math.max(1, leaseMillis / 3);
+        heartbeat.scheduleAtFixedRate(this::renew, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            coordinator.plan(inputRoot, settings, shardSize);
+
+            while(!coordinator.isFinished()) {
+                ShardCoordinator.Shard shard = coordinator.claim();
+
+                if(shard == null) {
+                    Thread.sleep(coordinator.getPollMillis());
+                    continue;
+                }
+
+                BatchScaler batch = new BatchScaler(settings);
+                long startTime = System.nanoTime();
+                currentBatch = batch;
+                currentShard = shard;
+
+                batch.start(inputRoot, shard.getFiles(), listener);
+                batch.awaitTermination();
+
+                currentShard = null;
+
+                // the worker that reclaimed the shard scales it again and completes it
+                if(batch.isStopped() || !coordinator.renew(shard, batch.getFinishedImages())) {
+                    leaseLost(shard);
+                    continue;
+                }
+
+                coordinator.complete(shard, batch, (System.nanoTime() - startTime) / 1_000_000);
+                shards++;
+                shardListener.accept(shard);
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of shards scaled by this worker.
+     * @return Number of shards.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * Returns how many shards this worker was scaling when another worker
+     * reclaimed them (because this one did not renew the lease in time).
+     * @return Number of leases lost.
+     */
+    public synchronized int getLostLeases() {
+        return lostLeases;
+    }
+
+    /**
+     * Returns the batch of the shard being scaled, or of the last one.
+     * @return Current batch, or null if no shard has been claimed.
+     */
+    public BatchScaler getCurrentBatch() {
+        return currentBatch;
+    }
+
+    private void renew() {
+        ShardCoordinator.Shard shard = currentShard;
+        BatchScaler batch = currentBatch;
+
+        if(!coordinator.renew(shard, shard == null ? 0 : batch.getFinishedImages())) {
+            // another worker rewrites the output folders of the shard
+            batch.stop();
+            leaseLost(shard);
+        }
+    }
+
+    private synchronized void leaseLost(ShardCoordinator.Shard shard) {
+        if(shard != lostShard) {
+            lostShard = shard;
+            lostLeases++;
+        }
+    }
+}
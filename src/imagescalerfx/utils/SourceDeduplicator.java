@@ -0,0 +1,143 @@
+package imagescalerfx.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Class that finds the images of a batch with the same contents, so each
+ * unique image is decoded and scaled only once. The first scaler of some
+ * contents is their leader and scales them; the rest reuse its scaled
+ * instances once it finishes (see ThreadScaler).<br/>
+ * The sources are grouped by a fast hash (see IOUtils.hash), with their
+ * size and extension, and two files with the same hash are compared byte
+ * by byte before their outputs are shared, so a collision never mixes up
+ * two images.<br/>
+ * A deduplicator can remember a limited number of contents (for batches
+ * that run until they are stopped): the least recently claimed ones are
+ * forgotten, and their next copy is scaled again.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class SourceDeduplicator {
+    private Map<String, List<Claim>> claims;
+
+    /**
+     * Initialize a deduplicator without any source, that remembers every
+     * content claimed.
+     */
+    public SourceDeduplicator() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Initialize a deduplicator without any source, that remembers a
+     * limited number of contents.
+     * @param maxContents Maximum number of contents (with different
+     *                    hashes) remembered.
+     */
+    public SourceDeduplicator(int maxContents) {
+        claims = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Claim>> eldest) {
+                return size() > maxContents;
+            }
+        };
+    }
+
+    /**
+     * Claims the contents of the image of a scaler. The scaler becomes
+     * their leader if no other scaler has claimed the same contents.
+     * @param scaler Scaler of the image.
+     * @param source Contents of the image file.
+     * @return Claim of the contents, whose leader is the given scaler or
+     *         the scaler that scales them.
+     * @throws IOException If the file could not be compared with the
+     *                     one of a leader.
+     */
+    public Claim claim(ThreadScaler scaler, ByteBuffer source) throws IOException {
+        Path path = scaler.getImage().getPath();
+        String fileName = path.getFileName().toString();
+
+        String key = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase()
+                     + ":" + source.remaining() + ":" + IOUtils.hash(source);
+
+        List<Claim> compared = new ArrayList<>();
+        while(true) {
+            List<Claim> sameHash;
+            synchronized (this) {
+                sameHash = new ArrayList<>(claims.getOrDefault(key, List.of()));
+            }
+
+            // the comparison reads both files, so it is done out of the lock
+            for(Claim claim : sameHash)
+                if(!compared.contains(claim)) {
+                    if(Files.mismatch(claim.leader.getImage().getPath(), path) == -1)
+                        return claim;
+                    compared.add(claim);
+                }
+
+            synchronized (this) {
+                List<Claim> keyClaims = claims.computeIfAbsent(key, k -> new ArrayList<>());
+
+                // another scaler may have claimed the same hash meanwhile,
+                // and then its file is compared too
+                if(compared.containsAll(keyClaims)) {
+                    Claim claim = new Claim(scaler);
+                    keyClaims.add(claim);
+                    return claim;
+                }
+            }
+        }
+    }
+
+    /**
+     * Contents of an image claimed by a leader.
+     */
+    public static class Claim {
+        private ThreadScaler leader;
+        private CompletableFuture<Boolean> scaled;
+
+        Claim(ThreadScaler leader) {
+            this.leader = leader;
+            scaled = new CompletableFuture<>();
+        }
+
+        /**
+         * Returns the scaler that scales the contents.
+         * @return Leader of the contents.
+         */
+        public ThreadScaler getLeader() {
+            return leader;
+        }
+
+        /**
+         * Publishes that the leader has finished. Only the first call has
+         * an effect.
+         * @param scaled True if all the scaled instances were written.
+         */
+        public void complete(boolean scaled) {
+            this.scaled.complete(scaled);
+        }
+
+        /**
+         * Runs an action once the leader has finished, in the thread that
+         * publishes it (or at once, if it has already finished), so the
+         * copies do not hold a thread while they wait.
+         * @param action Receives true if all the scaled instances of the
+         *               leader were written.
+         * @return Future completed when the action has run.
+         */
+        public CompletableFuture<Void> whenScaled(Consumer<Boolean> action) {
+            return scaled.thenAccept(action);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package imagescalerfx.utils;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Control;
+import javafx.scene.control.Label;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Class that shows the progress of the batch in the bottom status label.
+ * The workers publish their progress in a ProgressTracker, and this timer
+ * redraws the label at most once per frame, only when the progress has
+ * changed. The controls are unblocked in the first frame after the batch
+ * finishes, and then the finish action (if any) is run.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 14/11/2020
+ */
+public class StatusTimer extends AnimationTimer {
+    private BatchScaler batch;
+    private Label labelStatus;
+    private Control[] controlsToBlock;
+    private boolean running;
+    private Runnable onFinished;
+    private Map<PipelineStage, Integer> lastQueueDepths;
+
+    /**
+     * Constructor that initializes a timer from the batch that it
+     * shows, the label that it updates and the controls that it blocks.
+     * @param batch Batch that it shows.
+     * @param labelStatus Label that it updates.
+     * @param controlsToBlock Control to block array.
+     */
+    public StatusTimer(BatchScaler batch, Label labelStatus, Control[] controlsToBlock) {
+        this.batch = batch;
+        this.labelStatus = labelStatus;
+        this.controlsToBlock = controlsToBlock;
+    }
+
+    /**
+     * Set a new batch.
+     * @param batch New batch.
+     */
+    public void setNewBatch(BatchScaler batch) {
+        this.batch = batch;
+        lastQueueDepths = null;
+    }
+
+    /**
+     * Set the action run in the JavaFX thread when the batch finishes.
+     * @param onFinished Finish action, or null.
+     */
+    public void setOnFinished(Runnable onFinished) {
+        this.onFinished = onFinished;
+    }
+
+    /**
+     * Starts showing the progress of the batch, once per frame.
+     */
+    @Override
+    public void start() {
+        running = true;
+        super.start();
+    }
+
+    /**
+     * Stops showing the progress of the batch.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        super.stop();
+    }
+
+    /**
+     * Returns if the progress of the batch is still being shown, that is,
+     * if the batch has not finished.
+     * @return True if the timer is running.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void handle(long now) {
+        ProgressTracker progress = batch.getProgress();
+        Map<PipelineStage, Integer> queueDepths = batch.getQueueDepths();
+
+        // the queues change without publishing anything, so their depths
+        // are compared with the ones last shown
+        boolean queuesChanged = !Objects.equals(queueDepths, lastQueueDepths);
+        if(!progress.clearChanged() && !queuesChanged)
+            return;
+
+        lastQueueDepths = queueDepths;
+
+        labelStatus.setText(formatProgress(progress)
+                + (queueDepths != null ? " Queues: " + formatQueueDepths(queueDepths) : "")
+                + (batch.getLatencyCount() > 0 ? formatLatency(batch) : ""));
+
+        if(progress.isFinished()) {
+            stop();
+            Arrays.stream(controlsToBlock).forEach(c -> c.setDisable(false));
+
+            if(onFinished != null)
+                onFinished.run();
+        }
+    }
+
+    private static String formatProgress(ProgressTracker progress) {
+        double secondsLeft = progress.getEstimatedSecondsLeft();
+
+        return String.format(Locale.ROOT,
+                "%d of %d%s images, %d of %d levels, %.2f images/s, read %.1f MB/s, written %.1f MB/s%s%s.",
+                progress.getFinishedImages(),
+                progress.getDiscoveredImages(),
+                progress.isDiscoveryFinished() ? "" : "+",
+                progress.getLevelsDone(),
+                progress.getTotalLevels(),
+                progress.getImagesPerSecond(),
+                progress.getMegabytesReadPerSecond(),
+                progress.getMegabytesWrittenPerSecond(),
+                progress.isFinished() || secondsLeft < 0 ? "" :
+                        ", ETA " + formatSeconds(secondsLeft),
+                progress.getCacheHits() > 0 ?
+                        " (" + progress.getCacheHits() + " cache hits)" : "");
+    }
+
+    private static String formatLatency(BatchScaler batch) {
+        return String.format(Locale.ROOT, " Latency p50 %.1f s, p95 %.1f s.",
+                             batch.getLatencyPercentile(0.50) / 1000,
+                             batch.getLatencyPercentile(0.95) / 1000);
+    }
+
+    private static String formatSeconds(double seconds) {
+        long totalSeconds = Math.round(seconds);
+        return String.format(Locale.ROOT, "%d:%02d", totalSeconds / 60, totalSeconds % 60);
+    }
+
+    private static String formatQueueDepths(Map<PipelineStage, Integer> queueDepths) {
+        return queueDepths.entrySet().stream()
+                          .map(e -> e.getKey() + " " + e.getValue())
+                          .collect(Collectors.joining(" | "));
+    }
+}
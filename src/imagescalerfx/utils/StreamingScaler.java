@@ -0,0 +1,191 @@
+package imagescalerfx.utils;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Class in charge of scaling very large images without decoding them
+ * completely. The source is read in horizontal strips (with a source region)
+ * and every strip is added to an incremental downscaler for each level, so
+ * only a strip and the output levels are kept in memory.<br/>
+ * Levels are reduced with a box filter, whatever the engine selected. With
+ * alpha, the colours are averaged premultiplied by their alpha, so the
+ * colour of transparent pixels does not bleed into the edges.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class StreamingScaler {
+    /**
+     * Reads the image passed by parameter strip by strip and scales it to
+     * all the given sizes at once.
+     * @param inputImagePath Image to scale.
+     * @param sizes Sizes of the levels, not larger than the image.
+     * @param settings Options with the size of the strips.
+     * @return Scaled images, in the same order than the sizes,
+     *         or null if the image could not be read.
+     */
+    public static List<BufferedImage> scale(String inputImagePath, List<Dimension> sizes,
+                                            ScaleSettings settings) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new File(inputImagePath))) {
+            if(input == null)
+                return null;
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+
+            if(!readers.hasNext())
+                return null;
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, false, true);
+                return scale(reader, sizes, settings);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return null;
+    }
+
+    private static List<BufferedImage> scale(ImageReader reader, List<Dimension> sizes,
+                                             ScaleSettings settings) throws IOException {
+        int sourceWidth = reader.getWidth(0);
+        int sourceHeight = reader.getHeight(0);
+        int stripRows = (int) Math.max(1, settings.getStreamingStripPixels() / sourceWidth);
+
+        List<LevelAccumulator> levels = new ArrayList<>();
+        int[] row = new int[sourceWidth];
+
+        for(int y = 0; y < sourceHeight; y += stripRows) {
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new Rectangle(0, y, sourceWidth,
+                                                Math.min(stripRows, sourceHeight - y)));
+            BufferedImage strip = reader.read(0, param);
+
+            if(levels.isEmpty()) {
+                boolean alpha = strip.getColorModel().hasAlpha();
+                for(Dimension size : sizes)
+                    levels.add(new LevelAccumulator(sourceWidth, sourceHeight,
+                                                    size.width, size.height, alpha));
+            }
+
+            for(int r = 0; r < strip.getHeight(); r++) {
+                strip.getRGB(0, r, sourceWidth, 1, row, 0, sourceWidth);
+                for(LevelAccumulator level : levels)
+                    level.addRow(row);
+            }
+        }
+
+        List<BufferedImage> scaledImages = new ArrayList<>();
+        levels.forEach(level -> scaledImages.add(level.getImage()));
+        return scaledImages;
+    }
+
+    /**
+     * Box downscaler of one level that receives the source one row at a
+     * time and writes each output row as soon as all its rows have arrived.
+     */
+    private static class LevelAccumulator {
+        private int sourceHeight;
+        private int scaledWidth;
+        private int scaledHeight;
+        private boolean alpha;
+        private int[] columnMap;
+        private int[] columnCount;
+        private float[] sums;
+        private int sourceRow;
+        private int scaledRow;
+        private int accumulatedRows;
+        private BufferedImage image;
+        private int[] pixels;
+
+        LevelAccumulator(int sourceWidth, int sourceHeight,
+                         int scaledWidth, int scaledHeight, boolean alpha) {
+            this.sourceHeight = sourceHeight;
+            this.scaledWidth = scaledWidth;
+            this.scaledHeight = scaledHeight;
+            this.alpha = alpha;
+
+            columnMap = new int[sourceWidth];
+            columnCount = new int[scaledWidth];
+            for(int x = 0; x < sourceWidth; x++) {
+                columnMap[x] = (int) ((long) x * scaledWidth / sourceWidth);
+                columnCount[columnMap[x]]++;
+            }
+
+            sums = new float[scaledWidth * 4];
+            image = RasterPool.getShared().createImage(scaledWidth, scaledHeight, alpha ?
+                    BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        }
+
+        void addRow(int[] row) {
+            int targetRow = (int) ((long) sourceRow * scaledHeight / sourceHeight);
+            if(targetRow != scaledRow)
+                flushRow();
+
+            for(int x = 0; x < row.length; x++) {
+                int pixel = row[x];
+                int i = columnMap[x] * 4;
+                float coverage = alpha ? (pixel >>> 24) / 255f : 1;
+                sums[i] += pixel >>> 24;
+                sums[i + 1] += ((pixel >> 16) & 0xFF) * coverage;
+                sums[i + 2] += ((pixel >> 8) & 0xFF) * coverage;
+                sums[i + 3] += (pixel & 0xFF) * coverage;
+            }
+
+            accumulatedRows++;
+            sourceRow++;
+
+            if(sourceRow == sourceHeight)
+                flushRow();
+        }
+
+        BufferedImage getImage() {
+            return image;
+        }
+
+        private void flushRow() {
+            if(accumulatedRows > 0 && scaledRow < scaledHeight) {
+                int offset = scaledRow * scaledWidth;
+
+                for(int x = 0, i = 0; x < scaledWidth; x++, i += 4) {
+                    float samples = (float) columnCount[x] * accumulatedRows;
+                    int a = alpha ? Math.round(sums[i] / samples) : 0xFF;
+
+                    // the colours are divided by the coverage instead of the samples
+                    float divisor = alpha ? sums[i] / 255f : samples;
+                    if(a == 0 || divisor <= 0) {
+                        pixels[offset + x] = 0;
+                        continue;
+                    }
+
+                    pixels[offset + x] = a << 24
+                            | Math.min(255, Math.round(sums[i + 1] / divisor)) << 16
+                            | Math.min(255, Math.round(sums[i + 2] / divisor)) << 8
+                            | Math.min(255, Math.round(sums[i + 3] / divisor));
+                }
+            }
+
+            Arrays.fill(sums, 0f);
+            accumulatedRows = 0;
+            scaledRow++;
+        }
+    }
+}
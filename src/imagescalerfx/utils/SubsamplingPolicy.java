@@ -0,0 +1,36 @@
+package imagescalerfx.utils;
+
+/**
+ * Class that chooses how many source pixels can be skipped while decoding
+ * an image that is going to be reduced, so the decoded image is still
+ * large enough to resample it to the final size with good quality.
+ * @author Jose Valera
+ * @version 1.0
+ * @since 17/10/2026
+ */
+public class SubsamplingPolicy {
+    private double tolerance;
+
+    /**
+     * Initialize a policy from its quality tolerance: how many times larger
+     * than the target the decoded image must be, in each dimension.
+     * A tolerance of 2 keeps at least 2x2 decoded pixels for each final pixel.
+     * @param tolerance Minimum ratio between the decoded and the target size.
+     */
+    public SubsamplingPolicy(double tolerance) {
+        this.tolerance = Math.max(1.0, tolerance);
+    }
+
+    /**
+     * Returns the subsampling factor to decode an image that is going to be
+     * scaled to the given percentage (1 means no subsampling).
+     * @param percent Scaling percentage (0.5 is the half of the original).
+     * @return Number of source pixels per decoded pixel, in each dimension.
+     */
+    public int getFactor(double percent) {
+        if(percent <= 0 || percent >= 1)
+            return 1;
+
+        return Math.max(1, (int) Math.floor(1.0 / (percent * tolerance) + 1e-9));
+    }
+}
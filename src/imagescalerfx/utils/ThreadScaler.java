@@ -1,12 +1,18 @@
 package imagescalerfx.utils;
 
-import javafx.application.Platform;
-import javafx.scene.control.ListView;
-
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Thread that processes the scaling of an image.
@@ -16,22 +22,63 @@ import java.time.temporal.ChronoUnit;
  */
 public class ThreadScaler extends Thread{
     private ImageData image;
-    private String folderPath;
-    private ListView<ImageData> listViewImages;
-    private long requiredMilliseconds;
+    private Path folderPath;
+    private ScaleListener listener;
+    private ScaleSettings settings;
+    private volatile long requiredMilliseconds;
+    private volatile long latencyMilliseconds = -1;
+    private volatile boolean cacheHit;
+    private volatile boolean failed;
+    private long startTime;
+    private ScaleManifest manifest;
+    private volatile BasicFileAttributes sourceAttributes;
+    private volatile String sourceHash;
+    private PhaseTimings timings;
+    private ProgressTracker progress;
+    private MemoryBudget memoryBudget;
+    private PyramidContainerWriter container;
+    private MappedByteBuffer mappedSource;
+    private SourceDeduplicator deduplicator;
+    private SourceDeduplicator.Claim sourceClaim;
+    private volatile CompletableFuture<Void> duplicateFinished;
+    private volatile boolean deduplicated;
+    private volatile long sourceBytesSaved;
+    private volatile long linkedBytes;
+    private volatile long copiedBytes;
 
     /**
-     * Initialize a thread from the image and the list that it will
-     * update when finished.
+     * Initialize a thread from the image, the options used to scale and the
+     * listener that it will notify when finished. The scaled instances are
+     * stored in a subfolder, next to the image, with the same name.
      * @param image Image to be scaled.
-     * @param listViewImages List to be updated.
+     * @param settings Options used to scale the image.
+     * @param listener Listener to be notified.
      */
-    public ThreadScaler(ImageData image, ListView<ImageData> listViewImages) {
+    public ThreadScaler(ImageData image, ScaleSettings settings, ScaleListener listener) {
+        this(image,
+             Path.of(image.getPath().toString().substring(
+                     0, image.getPath().toString().lastIndexOf('.'))),
+             settings, listener);
+    }
+
+    /**
+     * Initialize a thread from the image, the folder where its scaled
+     * instances are stored, the options used to scale and the listener
+     * that it will notify when finished.
+     * @param image Image to be scaled.
+     * @param folderPath Folder for the scaled instances.
+     * @param settings Options used to scale the image.
+     * @param listener Listener to be notified.
+     */
+    public ThreadScaler(ImageData image, Path folderPath, ScaleSettings settings,
+                        ScaleListener listener) {
         this.image = image;
-        this.listViewImages = listViewImages;
-        folderPath = image.getPath().toString().substring(
-                0, image.getPath().toString().lastIndexOf('.'));
+        this.folderPath = folderPath;
+        this.settings = settings;
+        this.listener = listener;
         requiredMilliseconds = -1;
+        timings = new PhaseTimings(image.getFileName());
+        progress = new ProgressTracker(settings.getLevels().size());
     }
 
     /**
@@ -42,6 +89,14 @@ public class ThreadScaler extends Thread{
         return image;
     }
 
+    /**
+     * Returns the folder where the scaled instances are stored.
+     * @return Folder for the scaled instances.
+     */
+    public Path getFolderPath() {
+        return folderPath;
+    }
+
     /**
      * Returns the milliseconds it took for the scales.
      * @return Milliseconds it took for the scales.
@@ -50,31 +105,694 @@ public class ThreadScaler extends Thread{
         return requiredMilliseconds;
     }
 
+    /**
+     * Returns the milliseconds from the arrival of the image to a watched
+     * folder until all its levels were written (see FolderWatcher).
+     * @return Latency of the image, or -1 if the image was not watched.
+     */
+    public long getLatencyMilliseconds() {
+        return latencyMilliseconds;
+    }
+
+    /**
+     * Returns the time spent in each phase of the scaling.
+     * @return Timings of the phases.
+     */
+    public PhaseTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Set the progress where the bytes read and the levels written are
+     * published (by default, one of its own).
+     * @param progress Progress of the batch.
+     */
+    public void setProgressTracker(ProgressTracker progress) {
+        this.progress = progress;
+    }
+
+    /**
+     * Set the budget that admits the image before it is decoded by run
+     * (by default, none).
+     * @param memoryBudget Memory budget of the batch, or null.
+     */
+    public void setMemoryBudget(MemoryBudget memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Set the deduplicator shared by the scalers of the batch, so the
+     * copies of an image reuse its scaled instances (by default, none).
+     * @param deduplicator Deduplicator of the batch, or null.
+     */
+    public void setDeduplicator(SourceDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    /**
+     * Returns if the image was not scaled because it is a copy of another
+     * image of the batch, whose scaled instances were linked or copied.
+     * @return True if the image was deduplicated.
+     */
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+
+    /**
+     * Runs an action once the image has finished: at once, unless it is a
+     * copy of another image still being scaled, and then in the thread that
+     * finishes that one, after the scaled instances are reused.
+     * @param action Action run when the image has finished.
+     */
+    public void whenFinished(Runnable action) {
+        if(duplicateFinished == null) {
+            action.run();
+            return;
+        }
+
+        duplicateFinished.whenComplete((result, e) -> {
+            if(e != null)
+                e.printStackTrace();
+            action.run();
+        });
+    }
+
+    /**
+     * Returns the image whose scaled instances were reused.
+     * @return Image with the same contents, or null if the image was not
+     *         deduplicated.
+     */
+    public ImageData getDuplicateOf() {
+        return deduplicated ? sourceClaim.getLeader().getImage() : null;
+    }
+
+    /**
+     * Returns the bytes of the source that were not decoded because the
+     * image was deduplicated.
+     * @return Size of the image file, or 0.
+     */
+    public long getSourceBytesSaved() {
+        return sourceBytesSaved;
+    }
+
+    /**
+     * Returns the bytes of the scaled instances shared by hard links.
+     * @return Bytes linked.
+     */
+    public long getLinkedBytes() {
+        return linkedBytes;
+    }
+
+    /**
+     * Returns the bytes of the scaled instances copied because the file
+     * system does not support hard links.
+     * @return Bytes copied.
+     */
+    public long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * Returns if the image was skipped because its scaled instances were
+     * already up to date (incremental mode).
+     * @return True if the image was not scaled again.
+     */
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * Returns if the image could not be scaled because the output of its
+     * scaled instances could not be created.
+     * @return True if no level of the image was written.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns if the scales of the image have finished.
+     * @return True if the image has been scaled.
+     */
+    public boolean isFinished() {
+        return requiredMilliseconds >= 0;
+    }
+
     /**
      * Look for a subfolder (inside images folder) with the same name than
      * its associated image and create again, the folder previously deleted.<br/>
-     * Then, scale the image to different sizes: 10%, 20%, 30%, 40%, 50%,
-     * 60%, 70%, 80% and 90% of original size.<br/>
+     * Then, decode the image once and scale it to the levels of the settings
+     * (by default 10%, 20%, 30%, 40%, 50%, 60%, 70%, 80% and 90% of original
+     * size), in the order of its LevelPlan so each level can be derived
+     * from a larger one.<br/>
      * Each resulting image must be stored in the associated subfolder,
-     * with a prefix indicating the scaling factor. After all add the image’s
-     * original filename to the list view.
+     * with a prefix indicating the level. After all notify the
+     * listener.<br/>
+     * When it runs inside a fork/join pool, each level is a separate task
+     * that idle workers can steal, started once its parent is resampled.
+     * Images larger than the streaming threshold are read in strips instead
+     * of being decoded completely.<br/>
+     * In incremental mode, images that have not changed since they were
+     * scaled with the same settings are skipped (cache hits). With a memory
+     * budget, the image waits to be admitted before it is decoded. With a
+     * deduplicator, the copies of an image reuse its scaled instances once
+     * it finishes, without holding the thread (see whenFinished).
      */
     @Override
     public void run() {
-        if(new File(folderPath).exists())
-            IOUtils.deleteDirectory(Path.of(folderPath));
+        try {
+            if(!prepare())
+                return;
+
+            Dimension size = readDimensions();
+            long admittedBytes = MemoryBudget.estimateBytes(size, settings);
+
+            if(memoryBudget != null) {
+                try {
+                    memoryBudget.acquire(admittedBytes);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    finish();
+                    return;
+                }
+            }
+
+            try {
+                scale(size);
+            } catch (RuntimeException e) {
+                // the levels written are discarded, and the image is reported
+                abortContainer();
+                finish();
+                throw e;
+            } finally {
+                if(memoryBudget != null)
+                    memoryBudget.release(admittedBytes);
+            }
+
+            finish();
+        } finally {
+            abortContainer();
+            releaseClaim();
+        }
+    }
+
+    /**
+     * First phase of the scaling, for the runners that split it in stages
+     * (run calls it too). Starts measuring the time and, in incremental
+     * mode, finishes at once if the image is up to date. With a
+     * deduplicator, if the image is a copy of another one, it finishes when
+     * the image with the same contents does (see whenFinished).
+     * Otherwise it creates again the subfolder of the scaled instances, or
+     * starts writing their container.
+     * @return True if the image must be scaled, false if it was a cache hit,
+     *         a copy or its output could not be created (see isFailed).
+     */
+    public boolean prepare() {
+        startTime = System.nanoTime();
+        manifest = settings.isIncremental() ?
+                ScaleManifest.of(folderPath.toAbsolutePath().getParent()) : null;
+
+        if(manifest != null && levelsExist() &&
+                manifest.isUpToDate(image.getPath(), settings.getOutputKey())) {
+            cacheHit = true;
+            requiredMilliseconds = (System.nanoTime() - startTime) / 1_000_000;
+            measureLatency();
+            listener.imageScaled(this);
+            return false;
+        }
+
+        // the source is recorded as it is now, not as it is when it finishes
+        if(manifest != null)
+            sourceAttributes = readSourceAttributes();
+
+        if(deduplicator != null && reuseDuplicate())
+            return false;
+
+        if(settings.getOutputFormat() == OutputFormat.CONTAINER) {
+            IOUtils.createDirectories(folderPath.toAbsolutePath().getParent());
+
+            try {
+                container = new PyramidContainerWriter(getContainerPath(),
+                                                       settings.getLevels().size());
+            } catch (IOException e) {
+                // none of the levels could be written, so the image fails
+                e.printStackTrace();
+                failed = true;
+                finish();
+                return false;
+            }
+            return true;
+        }
+
+        if(folderPath.toFile().exists())
+            IOUtils.deleteDirectory(folderPath);
+
+        IOUtils.createDirectories(folderPath);
+        return true;
+    }
+
+    /**
+     * Last phase of the scaling, once every level has been written (run
+     * calls it too). Closes the container, records the image in the
+     * manifest, publishes the result to the copies of the image, stops
+     * measuring the time and notifies the listener. The runners must call
+     * it even if the scaling failed, or the copies would wait forever.
+     */
+    public void finish() {
+        mappedSource = null;
+
+        if(container != null) {
+            try {
+                container.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                container.abort();
+            }
+            container = null;
+        }
+
+        // the levels of a failed image may be the ones of a previous run
+        boolean scaled = !failed && levelsExist();
+        if(manifest != null && scaled && sourceAttributes != null && sourceHash != null)
+            manifest.record(image.getPath(), sourceAttributes, sourceHash,
+                            settings.getOutputKey());
 
-        IOUtils.createDirectory(Path.of(folderPath));
+        if(sourceClaim != null && sourceClaim.getLeader() == this)
+            sourceClaim.complete(scaled);
+
+        requiredMilliseconds = (System.nanoTime() - startTime) / 1_000_000;
+        measureLatency();
+
+        listener.imageScaled(this);
+    }
 
-        LocalDateTime startTime = LocalDateTime.now();
+    /**
+     * Returns the file of the scaled instance of a given level.
+     * @param level Level spec.
+     * @return Path of the scaled instance.
+     */
+    public String getLevelPath(LevelSpec level) {
+        return folderPath.resolve(
+                level.getName() + "_" + image.getPath().getFileName()).toString();
+    }
 
-        for(int i = 10; i <= 90; i += 10)
-            IOUtils.resize(image.getPath().toString(),
-              folderPath + "\\" + i + "_" + image.getFileName(),
-                           i / 100.0);
+    /**
+     * Plans the levels of the settings for the size of the image.
+     * @param size Width and height of the image.
+     * @return Plan of the levels.
+     */
+    public LevelPlan planLevels(Dimension size) {
+        return LevelPlan.of(size, settings);
+    }
 
-        requiredMilliseconds = startTime.until(LocalDateTime.now(), ChronoUnit.MILLIS);
+    /**
+     * Returns the file where the scaled instances are stored in the
+     * container output format.
+     * @return Path of the pyramid container.
+     */
+    public Path getContainerPath() {
+        return PyramidContainer.getPath(folderPath);
+    }
+
+    /**
+     * Reads the dimensions of the image from its header. With mapped
+     * sources, the file is mapped here and the mapping is kept for
+     * readSource, so the header is only read once.
+     * @return Width and height of the image, or null if it could not be read.
+     */
+    public Dimension readDimensions() {
+        if(!settings.isMappedSources())
+            return IOUtils.readDimensions(image.getPath().toString());
+
+        if(mappedSource == null)
+            mappedSource = IOUtils.map(image.getPath());
+        return mappedSource == null ? null : IOUtils.readDimensions(mappedSource);
+    }
+
+    /**
+     * Reads the bytes of the image file (read phase). With mapped sources,
+     * the mapping is loaded from the disk instead of copied to the heap.
+     * @return Contents of the image, or null if it could not be read.
+     */
+    public ByteBuffer readSource() {
+        PhaseTimings.Span span = timings.start(PipelineStage.READ, PhaseTimings.WHOLE_IMAGE);
+        waitIOLatency();
+
+        ByteBuffer bytes;
+        if(settings.isMappedSources()) {
+            MappedByteBuffer mapped = mappedSource != null ?
+                    mappedSource : IOUtils.map(image.getPath());
+            bytes = mapped == null ? null : mapped.load();
+        }
+
+        else {
+            byte[] contents = IOUtils.readBytes(image.getPath());
+            bytes = contents == null ? null : ByteBuffer.wrap(contents);
+        }
+
+        mappedSource = null;
+        span.stop();
+
+        if(bytes != null) {
+            progress.bytesRead(bytes.remaining());
+            if(manifest != null)
+                sourceHash = IOUtils.hash(bytes);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Decodes the bytes of the image into its pyramid (decode phase).
+     * @param bytes Contents of the image.
+     * @param largestScale Largest scale of the levels (see
+     *                     LevelPlan.getLargestScale), 1 if it is not known.
+     * @return Pyramid of the image, or null if it could not be decoded.
+     */
+    public ImagePyramid decodeSource(ByteBuffer bytes, double largestScale) {
+        PhaseTimings.Span span = timings.start(PipelineStage.DECODE, PhaseTimings.WHOLE_IMAGE);
+        try {
+            return ImagePyramid.decode(bytes, largestScale, settings);
+        } finally {
+            span.stop();
+        }
+    }
+
+    /**
+     * Reads the image in strips and scales it to all the levels of the plan
+     * at once. Everything is measured as the decode phase.
+     * @param plan Plan of the levels of the image.
+     * @return Scaled images, in the same order than the levels of the plan,
+     *         or null if the image could not be read.
+     */
+    public List<BufferedImage> scaleStreaming(LevelPlan plan) {
+        List<Dimension> sizes = new ArrayList<>();
+        for(LevelPlan.Level level : plan.getLevels())
+            sizes.add(level.getSize());
+
+        // streamed images are read from the file, in strips
+        mappedSource = null;
+        if(manifest != null)
+            sourceHash = hashSource();
+
+        PhaseTimings.Span span = timings.start(PipelineStage.DECODE, PhaseTimings.WHOLE_IMAGE);
+        try {
+            return StreamingScaler.scale(image.getPath().toString(), sizes, settings);
+        } finally {
+            span.stop();
+            progress.bytesRead(image.getPath().toFile().length());
+        }
+    }
+
+    /**
+     * Scales the image to a level of its pyramid (resample phase).
+     * @param pyramid Pyramid of the image.
+     * @param level Level of the plan of the image.
+     * @return Scaled image.
+     */
+    public BufferedImage resampleLevel(ImagePyramid pyramid, LevelPlan.Level level) {
+        PhaseTimings.Span span = timings.start(PipelineStage.RESAMPLE, level.getName());
+        try {
+            return pyramid.getLevel(level);
+        } finally {
+            span.stop();
+        }
+    }
+
+    /**
+     * Encodes a scaled level with the format of the image (encode phase),
+     * only once for all the specs of the level.
+     * @param scaledImage Scaled image.
+     * @param level Level of the plan of the image.
+     * @return Contents of the level file, or null if it could not be encoded.
+     */
+    public byte[] encodeLevel(BufferedImage scaledImage, LevelPlan.Level level) {
+        PhaseTimings.Span span = timings.start(PipelineStage.ENCODE, level.getName());
+        try {
+            return IOUtils.encode(scaledImage, getLevelPath(level.getSpecs().get(0)), settings);
+        } finally {
+            span.stop();
+        }
+    }
+
+    /**
+     * Writes an encoded level to the file of each of its specs, or appends
+     * it once to the container, shared by all its specs (write phase).
+     * Nothing is written if the level could not be encoded.
+     * @param bytes Contents of the level file.
+     * @param level Level of the plan of the image.
+     */
+    public void writeLevel(byte[] bytes, LevelPlan.Level level) {
+        if(bytes == null)
+            return;
+
+        if(settings.getOutputFormat() == OutputFormat.CONTAINER) {
+            PhaseTimings.Span span = timings.start(PipelineStage.WRITE, level.getName());
+            try {
+                waitIOLatency();
+                writeToContainer(bytes, level);
+            } finally {
+                span.stop();
+
+                // the rest of the specs of the level take no bytes
+                progress.levelWritten(bytes.length);
+                for(int i = 1; i < level.getSpecs().size(); i++)
+                    progress.levelWritten(0);
+            }
+            return;
+        }
+
+        for(LevelSpec spec : level.getSpecs()) {
+            PhaseTimings.Span span = timings.start(PipelineStage.WRITE, spec.getName());
+            try {
+                waitIOLatency();
+                IOUtils.writeBytes(bytes, getLevelPath(spec));
+            } finally {
+                span.stop();
+                progress.levelWritten(bytes.length);
+            }
+        }
+    }
+
+    private void scale(Dimension size) {
+        if(settings.isStreamed(size)) {
+            LevelPlan plan = planLevels(size);
+            List<BufferedImage> scaledImages = scaleStreaming(plan);
+
+            if(scaledImages != null)
+                for(int i = 0; i < scaledImages.size(); i++) {
+                    LevelPlan.Level level = plan.getLevels().get(i);
+                    byte[] encoded = encodeLevel(scaledImages.get(i), level);
+                    RasterPool.getShared().release(scaledImages.get(i));
+                    writeLevel(encoded, level);
+                }
+        }
+
+        else if(!settings.getLevels().isEmpty()) {
+            ByteBuffer bytes = readSource();
+            ImagePyramid pyramid = bytes == null ? null :
+                    decodeSource(bytes, size == null ? 1 : planLevels(size).getLargestScale());
+
+            if(pyramid != null) {
+                LevelPlan plan = planLevels(new Dimension(pyramid.getWidth(), pyramid.getHeight()));
+
+                if(ForkJoinTask.inForkJoinPool())
+                    ForkJoinTask.invokeAll(createLevelTasks(pyramid, plan, null));
+
+                else
+                    for(LevelPlan.Level level : plan.getLevels())
+                        scaleLevel(pyramid, level);
+
+                pyramid.release();
+            }
+        }
+    }
+
+    private boolean reuseDuplicate() {
+        MappedByteBuffer source = IOUtils.map(image.getPath());
+
+        if(source == null)
+            return false;
+
+        PhaseTimings.Span span = timings.start(PipelineStage.READ, PhaseTimings.WHOLE_IMAGE);
+        try {
+            sourceClaim = deduplicator.claim(this, source);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            span.stop();
+        }
+
+        if(sourceClaim.getLeader() == this) {
+            // the pages are already in memory for the header and the decoder
+            if(settings.isMappedSources())
+                mappedSource = source;
+            return false;
+        }
+
+        if(manifest != null)
+            sourceHash = IOUtils.hash(source);
+
+        // the wait is not part of the time of the image
+        long sourceBytes = source.capacity();
+        long waitStart = System.nanoTime();
+        duplicateFinished = sourceClaim.whenScaled(leaderScaled -> {
+            startTime += System.nanoTime() - waitStart;
+            finishDuplicate(leaderScaled, sourceBytes);
+        });
+        return true;
+    }
+
+    private void finishDuplicate(boolean leaderScaled, long sourceBytes) {
+        // if the other image could not be scaled, this one (with the same
+        // contents) is finished without its scaled instances
+        if(leaderScaled) {
+            try {
+                linkOutputs(sourceClaim.getLeader());
+                sourceBytesSaved = sourceBytes;
+                deduplicated = true;
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        finish();
+    }
+
+    private void linkOutputs(ThreadScaler leader) throws IOException {
+        if(settings.getOutputFormat() == OutputFormat.CONTAINER) {
+            IOUtils.createDirectories(folderPath.toAbsolutePath().getParent());
+            linkOutput(leader.getContainerPath(), getContainerPath());
+            return;
+        }
+
+        if(folderPath.toFile().exists())
+            IOUtils.deleteDirectory(folderPath);
+
+        IOUtils.createDirectories(folderPath);
+        for(LevelSpec level : settings.getLevels())
+            linkOutput(Path.of(leader.getLevelPath(level)), Path.of(getLevelPath(level)));
+    }
+
+    private void linkOutput(Path target, Path link) throws IOException {
+        long bytes = Files.size(target);
+
+        if(IOUtils.linkOrCopy(target, link))
+            linkedBytes += bytes;
+        else
+            copiedBytes += bytes;
+    }
+
+    private BasicFileAttributes readSourceAttributes() {
+        try {
+            return Files.readAttributes(image.getPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private String hashSource() {
+        try {
+            return IOUtils.hash(image.getPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private void abortContainer() {
+        // after finish, the container is already closed and this has no effect
+        if(container != null) {
+            container.abort();
+            container = null;
+        }
+    }
+
+    private void releaseClaim() {
+        // the copies of the image scale it themselves (after finish, the
+        // claim is already completed and this has no effect)
+        if(sourceClaim != null && sourceClaim.getLeader() == this)
+            sourceClaim.complete(false);
+    }
+
+    private void measureLatency() {
+        if(image.getArrivalTime() >= 0)
+            latencyMilliseconds = (System.nanoTime() - image.getArrivalTime()) / 1_000_000;
+    }
+
+    private void waitIOLatency() {
+        if(settings.getIoLatencyMillis() == 0)
+            return;
+
+        try {
+            Thread.sleep(settings.getIoLatencyMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeToContainer(byte[] bytes, LevelPlan.Level level) {
+        if(container == null)
+            return;
+
+        List<String> names = new ArrayList<>();
+        for(LevelSpec spec : level.getSpecs())
+            names.add(spec.getName());
+
+        try {
+            container.write(names, bytes);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private boolean levelsExist() {
+        if(settings.getOutputFormat() == OutputFormat.CONTAINER) {
+            if(!getContainerPath().toFile().exists())
+                return false;
+
+            try (PyramidContainer levels = PyramidContainer.open(getContainerPath())) {
+                return levels.containsAll(settings.getLevels());
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        for(LevelSpec level : settings.getLevels())
+            if(!new File(getLevelPath(level)).exists())
+                return false;
+
+        return true;
+    }
+
+    private List<ForkJoinTask<?>> createLevelTasks(ImagePyramid pyramid, LevelPlan plan,
+                                                   LevelPlan.Level parent) {
+        List<ForkJoinTask<?>> levelTasks = new ArrayList<>();
+
+        for(LevelPlan.Level level : plan.getLevels())
+            if(level.getParent() == parent)
+                levelTasks.add(ForkJoinTask.adapt(() -> {
+                    BufferedImage scaledImage = resampleLevel(pyramid, level);
+
+                    // the children are derived from this level while it is encoded
+                    List<ForkJoinTask<?>> tasks = createLevelTasks(pyramid, plan, level);
+                    tasks.add(ForkJoinTask.adapt(() -> writeScaledLevel(pyramid, scaledImage, level)));
+                    ForkJoinTask.invokeAll(tasks);
+                }));
+
+        return levelTasks;
+    }
+
+    private void scaleLevel(ImagePyramid pyramid, LevelPlan.Level level) {
+        writeScaledLevel(pyramid, resampleLevel(pyramid, level), level);
+    }
 
-        Platform.runLater(() -> listViewImages.getItems().add(image));
+    private void writeScaledLevel(ImagePyramid pyramid, BufferedImage scaledImage,
+                                  LevelPlan.Level level) {
+        byte[] encoded = encodeLevel(scaledImage, level);
+        pyramid.release(scaledImage);
+        writeLevel(encoded, level);
     }
 }
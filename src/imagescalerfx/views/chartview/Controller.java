@@ -1,19 +1,36 @@
 package imagescalerfx.views.chartview;
 
-import imagescalerfx.utils.SceneLoader;
-import imagescalerfx.utils.ThreadScaler;
+import imagescalerfx.utils.*;
+import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.chart.BarChart;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.StackedBarChart;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.stage.FileChooser;
+import javafx.util.StringConverter;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.stream.Collectors;
 
 /**
- * Class that controls the chart view.
+ * Class that controls the chart view. Each bar is an image, split in the
+ * time spent in each phase of its scaling.<br/>
+ * The history tab compares the runs recorded in the RunHistory: a metric
+ * of each run, and the last run against a previous one.
  * @author Jose Valera
  * @version 1.0
  * @since 14/11/2020
@@ -21,7 +38,39 @@ import java.util.ResourceBundle;
 public class Controller implements Initializable {
 
     @FXML
-    private BarChart barChart;
+    private StackedBarChart<String, Number> barChart;
+
+    @FXML
+    private CategoryAxis categoryAxis;
+
+    @FXML
+    private Label labelPercentiles;
+
+    @FXML
+    private Label labelDeduplication;
+
+    @FXML
+    private BarChart<String, Number> historyChart;
+
+    @FXML
+    private NumberAxis historyAxis;
+
+    @FXML
+    private BarChart<String, Number> phaseChart;
+
+    @FXML
+    private ChoiceBox<RunMetric> choiceBoxMetric;
+
+    @FXML
+    private ChoiceBox<RunRecord> choiceBoxBaseline;
+
+    @FXML
+    private Label labelComparison;
+
+    // runs shown in the history, the newest ones
+    private static final int HISTORY_RUNS = 20;
+
+    private List<RunRecord> runs;
 
     /**
      * Initialize the view by updating the chart data.
@@ -29,24 +78,213 @@ public class Controller implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         showChart();
+        showHistory();
     }
 
     private void showChart(){
-        List<ThreadScaler> threadScalers =
-                imagescalerfx.views.mainview.Controller.getThreadsScalers();
+        List<ThreadScaler> threadScalers = getThreadScalers();
 
         barChart.getData().clear();
-
         barChart.setTitle("Thread Performance");
-        XYChart.Series chartData = new XYChart.Series();
-        threadScalers.forEach(scaler -> {
-            chartData.getData().add(
-                    new XYChart.Data(
+
+        // a stacked chart needs its categories before the data
+        categoryAxis.setCategories(FXCollections.observableArrayList(
+                threadScalers.stream()
+                             .map(scaler -> scaler.getImage().getFileName())
+                             .distinct()
+                             .collect(Collectors.toList())));
+
+        for(PipelineStage phase : PipelineStage.values()) {
+            XYChart.Series<String, Number> phaseData = new XYChart.Series<>();
+            phaseData.setName(phase.toString());
+            threadScalers.stream()
+                         .filter(scaler -> !scaler.isCacheHit() && !scaler.isDeduplicated())
+                         .forEach(scaler ->
+                    phaseData.getData().add(new XYChart.Data<>(
                             scaler.getImage().getFileName(),
-                            scaler.getRequiredMilliseconds()));
+                            scaler.getTimings().getNanos(phase) / 1e6)));
+            barChart.getData().add(phaseData);
+        }
+
+        XYChart.Series<String, Number> cacheHitsData = new XYChart.Series<>();
+        cacheHitsData.setName("Cache hits");
+        threadScalers.stream().filter(ThreadScaler::isCacheHit).forEach(scaler ->
+                cacheHitsData.getData().add(new XYChart.Data<>(
+                        scaler.getImage().getFileName(),
+                        scaler.getRequiredMilliseconds())));
+
+        if(cacheHitsData.getData().size() > 0)
+            barChart.getData().add(cacheHitsData);
+
+        XYChart.Series<String, Number> duplicatesData = new XYChart.Series<>();
+        duplicatesData.setName("Duplicates");
+        threadScalers.stream().filter(ThreadScaler::isDeduplicated).forEach(scaler ->
+                duplicatesData.getData().add(new XYChart.Data<>(
+                        scaler.getImage().getFileName(),
+                        scaler.getRequiredMilliseconds())));
+
+        if(duplicatesData.getData().size() > 0)
+            barChart.getData().add(duplicatesData);
+
+        showPercentiles(threadScalers);
+        showDeduplication(threadScalers);
+    }
+
+    private void showPercentiles(List<ThreadScaler> threadScalers) {
+        List<String> phases = new ArrayList<>();
+
+        for(Map.Entry<PipelineStage, PhaseHistogram> entry :
+                PhaseHistogram.of(threadScalers).entrySet()) {
+            PhaseHistogram histogram = entry.getValue();
+
+            if(histogram.getCount() > 0)
+                phases.add(String.format(Locale.ROOT, "%s p50 %.1f / p95 %.1f / p99 %.1f ms",
+                        entry.getKey(),
+                        histogram.getPercentile(0.50) / 1e6,
+                        histogram.getPercentile(0.95) / 1e6,
+                        histogram.getPercentile(0.99) / 1e6));
+        }
+
+        labelPercentiles.setText(String.join("  |  ", phases));
+    }
+
+    private void showDeduplication(List<ThreadScaler> threadScalers) {
+        DeduplicationReport report = DeduplicationReport.of(threadScalers);
+
+        labelDeduplication.setText(report.getDuplicates() == 0 ? "" :
+                String.format(Locale.ROOT,
+                        "%d duplicate images: %d decodes and %.1f MB saved"
+                        + " (%.1f MB of sources, %.1f MB of levels linked, %.1f MB copied)",
+                        report.getDuplicates(), report.getDuplicates(),
+                        report.getBytesSaved() / 1e6, report.getSourceBytes() / 1e6,
+                        report.getLinkedBytes() / 1e6, report.getCopiedBytes() / 1e6));
+    }
+
+    private void showHistory() {
+        List<RunRecord> allRuns =
+                imagescalerfx.views.mainview.Controller.getRunHistory().load();
+        runs = allRuns.subList(Math.max(0, allRuns.size() - HISTORY_RUNS), allRuns.size());
+
+        if(runs.isEmpty()) {
+            labelComparison.setText("No runs recorded yet.");
+            return;
+        }
+
+        choiceBoxMetric.getItems().addAll(RunMetric.values());
+        choiceBoxMetric.valueProperty().addListener(
+                (observable, oldMetric, newMetric) -> showRunMetric(newMetric));
+        choiceBoxMetric.setValue(RunMetric.MAKESPAN);
+
+        choiceBoxBaseline.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(RunRecord run) {
+                return run == null ? "" : getRunName(run) + " " + run;
+            }
+
+            @Override
+            public RunRecord fromString(String text) {
+                return null;
+            }
         });
+        choiceBoxBaseline.getItems().addAll(runs.subList(0, runs.size() - 1));
+        choiceBoxBaseline.valueProperty().addListener(
+                (observable, oldRun, newRun) -> compareRuns(newRun));
+
+        if(runs.size() > 1)
+            choiceBoxBaseline.setValue(runs.get(runs.size() - 2));
+        else
+            compareRuns(null);
+    }
+
+    private void showRunMetric(RunMetric metric) {
+        historyChart.getData().clear();
+        historyAxis.setLabel(metric.toString());
+
+        XYChart.Series<String, Number> metricData = new XYChart.Series<>();
+        metricData.setName(metric.toString());
+        for(RunRecord run : runs)
+            metricData.getData().add(new XYChart.Data<>(getRunName(run), metric.getValue(run)));
+
+        historyChart.getData().add(metricData);
+    }
+
+    private void compareRuns(RunRecord baseline) {
+        RunRecord lastRun = runs.get(runs.size() - 1);
+
+        phaseChart.getData().clear();
+        for(RunRecord run : baseline == null ? List.of(lastRun) : List.of(baseline, lastRun)) {
+            XYChart.Series<String, Number> phaseData = new XYChart.Series<>();
+            phaseData.setName(getRunName(run));
+
+            for(PipelineStage phase : PipelineStage.values())
+                phaseData.getData().add(new XYChart.Data<>(
+                        phase.toString(), run.getPhasePercentile(phase, 0.95)));
+            phaseChart.getData().add(phaseData);
+        }
+
+        if(baseline == null) {
+            labelComparison.setText(getRunName(lastRun) + " " + lastRun + " on "
+                                    + lastRun.getHost() + ", " + lastRun.getJvm());
+            return;
+        }
+
+        List<String> changes = new ArrayList<>();
+        for(RunMetric metric : RunMetric.values())
+            changes.add(String.format(Locale.ROOT, "%s %.2f -> %.2f (%+.1f %%)",
+                    metric, metric.getValue(baseline), metric.getValue(lastRun),
+                    metric.getImprovement(baseline, lastRun) * 100));
+
+        // what changed between the runs, besides the code
+        if(!baseline.getSettingsDescription().equals(lastRun.getSettingsDescription()) ||
+                baseline.getThreads() != lastRun.getThreads())
+            changes.add("settings " + baseline.getThreads() + "t " + baseline.getSettingsDescription()
+                        + " -> " + lastRun.getThreads() + "t " + lastRun.getSettingsDescription());
+        if(!baseline.getSettingsKey().equals(lastRun.getSettingsKey()))
+            changes.add("different output settings");
+        if(!baseline.getJvm().equals(lastRun.getJvm()))
+            changes.add("JVM " + baseline.getJvm() + " -> " + lastRun.getJvm());
+        if(!baseline.getHost().equals(lastRun.getHost()))
+            changes.add("host " + baseline.getHost() + " -> " + lastRun.getHost());
+        if(!baseline.getInputRoot().equals(lastRun.getInputRoot()))
+            changes.add("different input folder");
+
+        labelComparison.setText(getRunName(lastRun) + " vs " + getRunName(baseline) + ": "
+                                + String.join(", ", changes) + " (positive is better)");
+    }
+
+    private String getRunName(RunRecord run) {
+        return "#" + (runs.indexOf(run) + 1);
+    }
+
+    private List<ThreadScaler> getThreadScalers() {
+        List<ThreadScaler> threadScalers =
+                imagescalerfx.views.mainview.Controller.getThreadsScalers();
+
+        synchronized (threadScalers) {
+            return threadScalers.stream()
+                                .filter(ThreadScaler::isFinished)
+                                .collect(Collectors.toList());
+        }
+    }
+
+    @FXML
+    private void exportCsv(ActionEvent event) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setInitialFileName("timings.csv");
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+
+        File selectedFile = fileChooser.showSaveDialog(
+                ((Node) event.getSource()).getScene().getWindow());
 
-        barChart.getData().add(chartData);
+        if(selectedFile != null) {
+            try {
+                PhaseTimings.writeCsv(getThreadScalers(), selectedFile.toPath());
+            } catch (IOException e) {
+                e.printStackTrace();
+                MessageUtils.showError("The timings could not be exported", e.getMessage());
+            }
+        }
     }
 
     @FXML
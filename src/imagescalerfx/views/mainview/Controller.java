@@ -1,8 +1,8 @@
 package imagescalerfx.views.mainview;
 
 import imagescalerfx.utils.*;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.concurrent.ScheduledService;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -13,16 +13,14 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
 /**
@@ -41,12 +39,33 @@ public class Controller implements Initializable {
     @FXML
     private Button buttonStart;
     @FXML
+    private ToggleButton toggleButtonWatch;
+    @FXML
     private ImageView imageViewSelectedImage;
     @FXML
     private Label labelStatus;
+    @FXML
+    private ChoiceBox<ExecutionMode> choiceBoxExecutionMode;
+    @FXML
+    private ChoiceBox<ScalingEngine> choiceBoxEngine;
+    @FXML
+    private ChoiceBox<ResampleFilter> choiceBoxFilter;
+    @FXML
+    private TextField textFieldLevels;
+    @FXML
+    private CheckBox checkBoxIncremental;
 
-    private StatusService statusService;
+    private StatusTimer statusTimer;
+    private BatchScaler watchedBatch;
     static private List<ThreadScaler> threadsScalers = new ArrayList<>();
+    static private ScaleSettings settings = new ScaleSettings();
+    static private PreviewCache previewCache = new PreviewCache(64 * 1024 * 1024);
+    static private RunHistory runHistory = new RunHistory(RunHistory.getDefaultPath());
+
+    // scaled instances prefetched at each side of the selected one
+    private static final int PREFETCHED_NEIGHBOURS = 2;
+    // time an arriving file must stay unchanged before it is scaled
+    private static final long WATCH_DEBOUNCE_MILLIS = 1000;
 
     /**
      * Initialize the view by creating the Service status and loading
@@ -54,12 +73,40 @@ public class Controller implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        statusService = new StatusService(
+        statusTimer = new StatusTimer(
                             null,
                             labelStatus,
-                            new Control[]{buttonStart, buttonChart},
-                            Duration.ZERO,
-                            Duration.seconds(1));
+                            new Control[]{buttonStart, buttonChart, choiceBoxExecutionMode,
+                                          choiceBoxEngine, choiceBoxFilter,
+                                          textFieldLevels, checkBoxIncremental,
+                                          toggleButtonWatch});
+
+        choiceBoxExecutionMode.getItems().addAll(ExecutionMode.values());
+        choiceBoxExecutionMode.setValue(settings.getExecutionMode());
+        choiceBoxExecutionMode.valueProperty().addListener(
+                (observable, oldMode, newMode) -> settings.setExecutionMode(newMode));
+
+        choiceBoxEngine.getItems().addAll(ScalingEngine.values());
+        choiceBoxEngine.setValue(settings.getScalingEngine());
+        choiceBoxEngine.valueProperty().addListener(
+                (observable, oldEngine, newEngine) -> settings.setScalingEngine(newEngine));
+
+        choiceBoxFilter.getItems().addAll(ResampleFilter.values());
+        choiceBoxFilter.setValue(settings.getResampleFilter());
+        choiceBoxFilter.valueProperty().addListener(
+                (observable, oldFilter, newFilter) -> settings.setResampleFilter(newFilter));
+
+        textFieldLevels.setText(settings.getLevels().stream()
+                                        .map(LevelSpec::getName)
+                                        .collect(Collectors.joining(",")));
+
+        checkBoxIncremental.setSelected(settings.isIncremental());
+        checkBoxIncremental.selectedProperty().addListener(
+                (observable, oldValue, newValue) -> settings.setIncremental(newValue));
+
+        // follows the selection, so the keyboard navigation shows each image too
+        listViewScaledInstances.getSelectionModel().selectedIndexProperty().addListener(
+                (observable, oldIndex, newIndex) -> showScaledImage(newIndex.intValue()));
 
         if(threadsScalers.size() == 0)
             buttonChart.setDisable(true);
@@ -80,52 +127,132 @@ public class Controller implements Initializable {
 
     @FXML
     private void StartScales(ActionEvent event) {
+        File selectedDirectory = chooseDirectory(event);
+
+        if (selectedDirectory != null) {
+            SetExitDialog(event);
+
+            if (!IOUtils.containsImages(selectedDirectory.toPath()))
+                MessageUtils.showError(
+                        "No compatible format images found in directory",
+                        "Select another directory");
+
+            else {
+                prepareControlsForScale();
+                scaleImages(selectedDirectory.toPath());
+            }
+        }
+    }
+
+    @FXML
+    private void WatchFolder(ActionEvent event) {
+        // the images already queued are finished, then the controls are unblocked
+        if(!toggleButtonWatch.isSelected()) {
+            toggleButtonWatch.setDisable(true);
+            if(watchedBatch != null)
+                watchedBatch.stopWatching();
+            return;
+        }
+
+        File selectedDirectory = chooseDirectory(event);
+
+        if (selectedDirectory == null) {
+            toggleButtonWatch.setSelected(false);
+            return;
+        }
+
+        SetExitDialog(event);
+        prepareControlsForScale();
+        toggleButtonWatch.setDisable(false);
+        watchImages(selectedDirectory.toPath());
+    }
+
+    /**
+     * Returns the history where every batch scaled from the view is
+     * recorded.
+     * @return History of the runs.
+     */
+    static public RunHistory getRunHistory() {
+        return runHistory;
+    }
+
+    private File chooseDirectory(ActionEvent event) {
+        try {
+            settings.setLevels(LevelSpec.parseList(textFieldLevels.getText()));
+        } catch (IllegalArgumentException e) {
+            MessageUtils.showError(e.getMessage(),
+                    "Use percentages (50), widths (w640) or boxes (640x480), separated by commas");
+            return null;
+        }
+
         if(threadsScalers.size() == 0 ||
                 ( threadsScalers.size() > 0 &&
                 MessageUtils.showConfirmation(
                     "Do you want to scale again?",
-                    " You will delete the information from the listings") == ButtonType.OK) ) {
-            File selectedDirectory =
-                    new DirectoryChooser().showDialog(
-                            ((Node) event.getSource()).getScene().getWindow());
-
-            if (selectedDirectory != null) {
-                SetExitDialog(event);
-
-                List<ThreadScaler> threadScalersAux =
-                        IOUtils.getImages(selectedDirectory.toPath())
-                                .stream().map(p -> new ThreadScaler(p, listViewImages))
-                                .collect(Collectors.toList());
-
-                if (threadScalersAux.size() == 0)
-                    MessageUtils.showError(
-                            "No compatible format images found in directory",
-                            "Select another directory");
-
-                else {
-                    threadsScalers = threadScalersAux;
-                    prepareControlsForScale();
-                    scaleImages();
-                }
-            }
-        }
+                    " You will delete the information from the listings") == ButtonType.OK) )
+            return new DirectoryChooser().showDialog(
+                    ((Node) event.getSource()).getScene().getWindow());
+
+        return null;
     }
 
-    private void scaleImages() {
-        ThreadPoolExecutor executor = (ThreadPoolExecutor)
-                Executors.newFixedThreadPool(
-                        Runtime.getRuntime().availableProcessors());
+    private void scaleImages(Path selectedDirectory) {
+        BatchScaler batch = new BatchScaler(settings);
+        threadsScalers = batch.getScalers();
+        long startMillis = System.currentTimeMillis();
 
-        threadsScalers.stream().forEach(executor::execute);
-        statusService.setNewExecutor(executor);
+        batch.start(selectedDirectory,
+                    scaler -> Platform.runLater(() ->
+                            listViewImages.getItems().add(scaler.getImage())));
 
-        executor.shutdown();
-        statusService.restart();
+        statusTimer.setNewBatch(batch);
+        statusTimer.setOnFinished(() -> recordRun(batch, selectedDirectory, startMillis));
+        statusTimer.start();
+    }
+
+    private void watchImages(Path selectedDirectory) {
+        BatchScaler batch = new BatchScaler(settings);
+        threadsScalers = batch.getScalers();
+        long startMillis = System.currentTimeMillis();
+
+        try {
+            batch.watch(selectedDirectory, WATCH_DEBOUNCE_MILLIS,
+                        scaler -> Platform.runLater(() ->
+                                listViewImages.getItems().add(scaler.getImage())));
+        } catch (IOException e) {
+            e.printStackTrace();
+            MessageUtils.showError("The directory could not be watched", e.getMessage());
+            batch.getProgress().batchFinished();
+        }
+
+        watchedBatch = batch;
+        statusTimer.setNewBatch(batch);
+        statusTimer.setOnFinished(() -> {
+            watchedBatch = null;
+            toggleButtonWatch.setSelected(false);
+            recordRun(batch, selectedDirectory, startMillis);
+        });
+        statusTimer.start();
+    }
+
+    private void recordRun(BatchScaler batch, Path selectedDirectory, long startMillis) {
+        try {
+            runHistory.record(batch.getScalers(), settings, selectedDirectory, startMillis,
+                              Math.round(batch.getProgress().getElapsedSeconds() * 1000));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     private void prepareControlsForScale() {
         buttonStart.setDisable(true);
         buttonChart.setDisable(true);
+        choiceBoxExecutionMode.setDisable(true);
+        choiceBoxEngine.setDisable(true);
+        choiceBoxFilter.setDisable(true);
+        textFieldLevels.setDisable(true);
+        checkBoxIncremental.setDisable(true);
+        toggleButtonWatch.setDisable(true);
         listViewImages.getItems().clear();
         listViewScaledInstances.getItems().clear();
         imageViewSelectedImage.setImage(null);
@@ -142,21 +269,50 @@ public class Controller implements Initializable {
             listViewScaledInstances.setItems(
                     FXCollections.observableList(
                             IOUtils.getImages(Path.of(folderPath))));
+            prefetchNeighbours(0);
         }
     }
 
-    @FXML
-    private void ShowScaledImage() {
-        ImageData imageData = listViewScaledInstances.getSelectionModel().getSelectedItem();
+    private void showScaledImage(int index) {
+        List<ImageData> scaledInstances = listViewScaledInstances.getItems();
 
-        if(imageData != null) {
-            imageViewSelectedImage.setImage(
-                    new Image(
-                            new File(
-                                    imageData.getPath().toString()).toURI().toString()) );
+        if(index < 0 || index >= scaledInstances.size()) {
+            imageViewSelectedImage.setImage(null);
+            return;
+        }
+
+        imageViewSelectedImage.setImage(getPreview(scaledInstances.get(index)));
+        prefetchNeighbours(index);
+    }
+
+    private void prefetchNeighbours(int index) {
+        List<ImageData> scaledInstances = listViewScaledInstances.getItems();
+        double outputScale = getOutputScale();
+
+        for(int i = 1; i <= PREFETCHED_NEIGHBOURS; i++) {
+            for(int neighbour : new int[]{index + i, index - i})
+                if(neighbour >= 0 && neighbour < scaledInstances.size())
+                    previewCache.prefetch(scaledInstances.get(neighbour).getPath(),
+                                          imageViewSelectedImage.getFitWidth() * outputScale,
+                                          imageViewSelectedImage.getFitHeight() * outputScale);
         }
     }
 
+    private Image getPreview(ImageData imageData) {
+        double outputScale = getOutputScale();
+
+        return previewCache.get(imageData.getPath(),
+                                imageViewSelectedImage.getFitWidth() * outputScale,
+                                imageViewSelectedImage.getFitHeight() * outputScale);
+    }
+
+    private double getOutputScale() {
+        // the image is decoded at the size it is displayed, in screen pixels
+        return imageViewSelectedImage.getScene() == null ||
+               imageViewSelectedImage.getScene().getWindow() == null ? 1 :
+                imageViewSelectedImage.getScene().getWindow().getOutputScaleX();
+    }
+
     @FXML
     private void goToChartView(ActionEvent event) {
         SceneLoader.goToView(event,
@@ -169,7 +325,7 @@ public class Controller implements Initializable {
         stage.setOnCloseRequest(e -> {
             boolean exit = false;
 
-            if(statusService != null && statusService.isRunning())
+            if(statusTimer != null && statusTimer.isRunning())
                 MessageUtils.showError(
                         "Scale processes are in progress.",
                         "Wait for them to complete...");
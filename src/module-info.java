@@ -2,8 +2,11 @@ module ImageScalerFX {
     requires javafx.fxml;
     requires  javafx.controls;
     requires java.desktop;
+    requires jdk.jfr;
+    requires jdk.management;
     opens imagescalerfx;
     opens imagescalerfx.utils;
+    opens imagescalerfx.benchmark;
     opens imagescalerfx.views.mainview;
     opens imagescalerfx.views.chartview;
 }
\ No newline at end of file